@@ -0,0 +1,52 @@
+package site.choice21.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Realistic server names and placeholder strings shared by the benchmarks
+ */
+final class BenchmarkData {
+    static final List<String> SERVERS = List.of(
+            "lobby", "lobby2", "survival", "modernprac", "battleroyale",
+            "skyblock", "bedwars", "skywars", "creative", "events");
+    
+    static final String SCOREBOARD_LINE = "&7Lobby: &a%online_lobby%";
+    
+    static final String[] SCOREBOARD = {
+            "&6&lNETWORK",
+            "&7",
+            "&7Lobby: &a%online_lobby%",
+            "&7Survival: &a%online_survival%",
+            "&7Practice: &a%online_modernprac%",
+            "&7Battle Royale: &a%online_battleroyale%",
+            "&7Skyblock: &a%online_skyblock%",
+            "&7",
+            "&eplay.example.net"
+    };
+    
+    static final String TAB_HEADER = "&6&lEXAMPLE NETWORK\n"
+            + "&7Lobby &a%online_lobby% &8| &7Survival &a%online_survival% &8| &7Practice &a%online_modernprac%\n"
+            + "&7Bedwars &a%online_bedwars% &8| &7Skywars &a%online_skywars% &8| &7Events &a%online_events%";
+    
+    static final String PLAIN_TEXT = "&7Welcome to the network! Use &e/server &7to switch servers.";
+    
+    private BenchmarkData() {
+    }
+    
+    static StubOnlinePlayersPlugin createPlugin() {
+        StubOnlinePlayersPlugin plugin = new StubOnlinePlayersPlugin(SERVERS);
+        for (int i = 0; i < SERVERS.size(); i++) {
+            plugin.updateCount(SERVERS.get(i), 17 + i * 31);
+        }
+        return plugin;
+    }
+    
+    static List<String> serverNames(int count) {
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            names.add("server" + i);
+        }
+        return names;
+    }
+}
@@ -0,0 +1,57 @@
+package site.choice21.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import site.choice21.PluginConfig;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PluginConfig.load with large server lists
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConfigLoadBenchmark {
+    @Param({"10", "1000", "10000"})
+    public int servers;
+    
+    private Path configFile;
+    
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        StringBuilder config = new StringBuilder("# Generated benchmark config\n\n[servers]\n");
+        for (String name : BenchmarkData.serverNames(servers)) {
+            config.append(name).append(" = \"").append(name).append("\"\n");
+        }
+        configFile = Files.createTempFile("vplaceholders-bench", ".toml");
+        Files.writeString(configFile, config);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(configFile);
+    }
+    
+    @Benchmark
+    public PluginConfig load() throws IOException {
+        return PluginConfig.load(configFile);
+    }
+}
@@ -0,0 +1,332 @@
+package site.choice21.benchmarks;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thousands of fake Minecraft status endpoints on localhost, all served by one selector thread
+ * Each request is answered after a random latency, and a configurable share of requests is
+ * dropped, answered with a malformed response, or trickled out one byte at a time (slow loris).
+ */
+final class FakeStatusServers implements AutoCloseable {
+    private static final long TRICKLE_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+    
+    /**
+     * How the endpoints misbehave, as fractions of requests
+     */
+    static final class Profile {
+        int minLatencyMillis = 1;
+        int maxLatencyMillis = 20;
+        double dropRate;
+        double malformedRate;
+        double slowLorisRate;
+    }
+    
+    private enum Behavior { NORMAL, DROP, MALFORMED, SLOW_LORIS }
+    
+    final LongAdder accepted = new LongAdder();
+    final LongAdder answered = new LongAdder();
+    final LongAdder dropped = new LongAdder();
+    final LongAdder malformed = new LongAdder();
+    final LongAdder trickled = new LongAdder();
+    
+    private final Profile profile;
+    private final Selector selector;
+    private final List<ServerSocketChannel> listeners = new ArrayList<>();
+    private final List<InetSocketAddress> addresses = new ArrayList<>();
+    // Player count per endpoint, drifting a little with every answer
+    private final int[] online;
+    private final Random random;
+    // Only touched by the selector thread
+    private final PriorityQueue<Client> due = new PriorityQueue<>((a, b) -> Long.compare(a.dueNanos, b.dueNanos));
+    private final Thread thread;
+    private volatile boolean running = true;
+    
+    FakeStatusServers(int count, Profile profile, long seed) throws IOException {
+        this.profile = profile;
+        this.selector = Selector.open();
+        this.online = new int[count];
+        this.random = new Random(seed);
+        for (int i = 0; i < count; i++) {
+            ServerSocketChannel listener = ServerSocketChannel.open();
+            listener.bind(new InetSocketAddress("127.0.0.1", 0), 1024);
+            listener.configureBlocking(false);
+            listener.register(selector, SelectionKey.OP_ACCEPT, i);
+            listeners.add(listener);
+            addresses.add((InetSocketAddress) listener.getLocalAddress());
+            online[i] = random.nextInt(200);
+        }
+        this.thread = new Thread(this::run, "Fake status servers");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+    
+    List<InetSocketAddress> getAddresses() {
+        return addresses;
+    }
+    
+    private void run() {
+        while (running) {
+            try {
+                Client next = due.peek();
+                long wait = next == null ? 0 : TimeUnit.NANOSECONDS.toMillis(next.dueNanos - System.nanoTime());
+                if (next != null && wait <= 0) {
+                    selector.selectNow();
+                } else {
+                    selector.select(wait);
+                }
+                for (SelectionKey key : selector.selectedKeys()) {
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept(key);
+                    } else if (key.isReadable()) {
+                        read((Client) key.attachment());
+                    } else if (key.isWritable()) {
+                        write((Client) key.attachment());
+                    }
+                }
+                selector.selectedKeys().clear();
+                runDue();
+            } catch (IOException e) {
+                if (running) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+    
+    private void accept(SelectionKey key) throws IOException {
+        SocketChannel channel = ((ServerSocketChannel) key.channel()).accept();
+        if (channel == null) {
+            return;
+        }
+        accepted.increment();
+        channel.configureBlocking(false);
+        Client client = new Client(channel, (Integer) key.attachment());
+        client.key = channel.register(selector, SelectionKey.OP_READ, client);
+    }
+    
+    private void read(Client client) {
+        try {
+            int read = client.channel.read(client.in);
+            if (read == -1) {
+                close(client);
+                return;
+            }
+            if (client.behavior == null && client.hasRequest()) {
+                client.key.interestOps(0);
+                schedule(client);
+            }
+        } catch (IOException e) {
+            close(client);
+        }
+    }
+    
+    /**
+     * Pick what to do with a complete request and when
+     */
+    private void schedule(Client client) {
+        double roll = random.nextDouble();
+        if (roll < profile.dropRate) {
+            client.behavior = Behavior.DROP;
+        } else if ((roll -= profile.dropRate) < profile.malformedRate) {
+            client.behavior = Behavior.MALFORMED;
+        } else if (roll - profile.malformedRate < profile.slowLorisRate) {
+            client.behavior = Behavior.SLOW_LORIS;
+        } else {
+            client.behavior = Behavior.NORMAL;
+        }
+        int spread = Math.max(0, profile.maxLatencyMillis - profile.minLatencyMillis);
+        int latency = profile.minLatencyMillis + (spread > 0 ? random.nextInt(spread + 1) : 0);
+        client.dueNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(latency);
+        due.add(client);
+    }
+    
+    private void runDue() {
+        long now = System.nanoTime();
+        while (!due.isEmpty() && due.peek().dueNanos - now <= 0) {
+            Client client = due.poll();
+            if (!client.channel.isOpen()) {
+                continue;
+            }
+            switch (client.behavior) {
+                case DROP:
+                    dropped.increment();
+                    close(client);
+                    break;
+                case MALFORMED:
+                    malformed.increment();
+                    client.out = malformedResponse();
+                    write(client);
+                    break;
+                case SLOW_LORIS:
+                    if (client.out == null) {
+                        trickled.increment();
+                        client.out = response(client.endpoint);
+                    }
+                    trickle(client, now);
+                    break;
+                default:
+                    answered.increment();
+                    client.out = response(client.endpoint);
+                    write(client);
+                    break;
+            }
+        }
+    }
+    
+    private void write(Client client) {
+        try {
+            client.channel.write(client.out);
+            if (client.out.hasRemaining()) {
+                client.key.interestOps(SelectionKey.OP_WRITE);
+            } else {
+                close(client);
+            }
+        } catch (IOException e) {
+            close(client);
+        }
+    }
+    
+    /**
+     * Send one more byte and come back later, until the client gives up
+     */
+    private void trickle(Client client, long now) {
+        try {
+            ByteBuffer one = client.out.slice();
+            one.limit(1);
+            client.out.position(client.out.position() + client.channel.write(one));
+            if (!client.out.hasRemaining()) {
+                close(client);
+                return;
+            }
+            client.dueNanos = now + TRICKLE_INTERVAL_NANOS;
+            due.add(client);
+        } catch (IOException e) {
+            close(client);
+        }
+    }
+    
+    private ByteBuffer response(int endpoint) {
+        online[endpoint] = Math.max(0, online[endpoint] + random.nextInt(5) - 2);
+        String json = "{\"version\":{\"name\":\"Paper 1.20.4\",\"protocol\":765},"
+                + "\"players\":{\"max\":500,\"online\":" + online[endpoint] + ",\"sample\":[]},"
+                + "\"description\":{\"text\":\"Fake server " + endpoint + "\"}}";
+        return packet(json.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private ByteBuffer malformedResponse() {
+        switch (random.nextInt(3)) {
+            case 0:
+                // Valid framing around JSON that stops halfway
+                return packet("{\"players\":{\"online\":".getBytes(StandardCharsets.UTF_8));
+            case 1:
+                // A packet length VarInt that never ends
+                return ByteBuffer.wrap(new byte[] { (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF });
+            default:
+                // A declared length far beyond what any status response may be
+                return ByteBuffer.wrap(new byte[] { (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0x7F, 0x00 });
+        }
+    }
+    
+    private static ByteBuffer packet(byte[] json) {
+        ByteBuffer body = ByteBuffer.allocate(json.length + 16);
+        body.put((byte) 0x00);
+        putVarInt(body, json.length);
+        body.put(json);
+        body.flip();
+        ByteBuffer packet = ByteBuffer.allocate(body.remaining() + 5);
+        putVarInt(packet, body.remaining());
+        packet.put(body);
+        packet.flip();
+        return packet;
+    }
+    
+    private static void putVarInt(ByteBuffer out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+    
+    private void close(Client client) {
+        try {
+            client.channel.close();
+        } catch (IOException e) {
+            // Ignore
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (ServerSocketChannel listener : listeners) {
+            listener.close();
+        }
+        for (SelectionKey key : selector.keys()) {
+            key.channel().close();
+        }
+        selector.close();
+    }
+    
+    private static final class Client {
+        final SocketChannel channel;
+        final int endpoint;
+        final ByteBuffer in = ByteBuffer.allocate(512);
+        SelectionKey key;
+        Behavior behavior;
+        long dueNanos;
+        ByteBuffer out;
+        
+        Client(SocketChannel channel, int endpoint) {
+            this.channel = channel;
+            this.endpoint = endpoint;
+        }
+        
+        /**
+         * @return true once a handshake and the status request after it have arrived
+         */
+        boolean hasRequest() {
+            int length = 0;
+            int shift = 0;
+            int position = 0;
+            while (true) {
+                if (position >= in.position()) {
+                    return false;
+                }
+                byte b = in.get(position++);
+                length |= (b & 0x7F) << shift;
+                shift += 7;
+                if ((b & 0x80) == 0) {
+                    break;
+                }
+                if (shift >= 35) {
+                    return true;
+                }
+            }
+            // The status request after the handshake is two bytes long
+            return in.position() >= position + length + 2 || !in.hasRemaining();
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package site.choice21.benchmarks;
+
+import site.choice21.PingCoordinator;
+import site.choice21.PluginConfig;
+import site.choice21.PollScheduler;
+import site.choice21.ServerStatus;
+import site.choice21.StatusPinger;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Soak test for the ping path: polls thousands of fake status endpoints on localhost with the
+ * plugin's own PollScheduler, PingCoordinator and StatusPinger, and reports throughput, tail latency,
+ * thread count and heap growth as it runs
+ * Run with {@code java -cp benchmarks/target/benchmarks.jar site.choice21.benchmarks.PingLoadHarness [options]}.
+ */
+public final class PingLoadHarness {
+    private final Options options;
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final AtomicReference<LatencyRecorder> latencies = new AtomicReference<>(new LatencyRecorder());
+    
+    private PingLoadHarness(Options options) {
+        this.options = options;
+    }
+    
+    public static void main(String[] args) throws Exception {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(Options.USAGE);
+            System.exit(2);
+            return;
+        }
+        new PingLoadHarness(options).run();
+    }
+    
+    private void run() throws IOException, InterruptedException {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        int threadsBefore = threads.getThreadCount();
+        
+        FakeStatusServers.Profile profile = new FakeStatusServers.Profile();
+        profile.minLatencyMillis = options.minLatency;
+        profile.maxLatencyMillis = options.maxLatency;
+        profile.dropRate = options.dropRate;
+        profile.malformedRate = options.malformedRate;
+        profile.slowLorisRate = options.slowLorisRate;
+        
+        System.out.printf(Locale.ROOT, "Starting %d fake servers (latency %d-%d ms, drop %.1f%%, malformed %.1f%%, slow loris %.1f%%), %d pings at once%n",
+                options.servers, options.minLatency, options.maxLatency,
+                options.dropRate * 100, options.malformedRate * 100, options.slowLorisRate * 100, options.concurrency);
+        try (FakeStatusServers fakes = new FakeStatusServers(options.servers, profile, 42);
+             StatusPinger pinger = new StatusPinger("Harness Pinger")) {
+            List<InetSocketAddress> addresses = fakes.getAddresses();
+            Map<String, InetSocketAddress> byName = new HashMap<>();
+            Map<String, PollScheduler.Settings> settings = new LinkedHashMap<>();
+            PollScheduler.Settings serverSettings = settings(options);
+            for (int i = 0; i < addresses.size(); i++) {
+                String name = "server" + i;
+                byName.put(name, addresses.get(i));
+                settings.put(name, serverSettings);
+            }
+            
+            int timeoutMillis = options.timeoutSeconds * 1000;
+            PingCoordinator<ServerStatus> coordinator = new PingCoordinator<>(options.concurrency);
+            PollScheduler.Probe probe = serverName -> {
+                InetSocketAddress address = byName.get(serverName);
+                CompletableFuture<ServerStatus> status = coordinator.submit(serverName, timeoutMillis, () -> pinger.ping(address, timeoutMillis));
+                return status.thenApply(ServerStatus::getOnline);
+            };
+            try (PollScheduler scheduler = new PollScheduler(probe, this::onPoll, "Harness Poller")) {
+                System.gc();
+                long heapBefore = memory.getHeapMemoryUsage().getUsed();
+                scheduler.setServers(settings);
+                
+                System.out.println("   time   polls/s       ok  timeout    error    p50 ms    p99 ms  p99.9 ms    max ms  threads   heap MB");
+                long start = System.nanoTime();
+                long reportNanos = options.reportSeconds * 1_000_000_000L;
+                long end = start + options.durationSeconds * 1_000_000_000L;
+                long last = start;
+                long lastPolls = 0;
+                while (System.nanoTime() < end) {
+                    Thread.sleep(Math.max(1, Math.min(reportNanos, end - System.nanoTime()) / 1_000_000));
+                    long now = System.nanoTime();
+                    long polls = successes.sum() + timeouts.sum() + errors.sum();
+                    LatencyRecorder interval = latencies.getAndSet(new LatencyRecorder());
+                    System.out.printf(Locale.ROOT, "%6ds %9.0f %8d %8d %8d %9.1f %9.1f %9.1f %9.1f %8d %9.1f%n",
+                            (now - start) / 1_000_000_000L,
+                            (polls - lastPolls) / ((now - last) / 1e9),
+                            successes.sum(), timeouts.sum(), errors.sum(),
+                            interval.percentileMillis(0.5), interval.percentileMillis(0.99),
+                            interval.percentileMillis(0.999), interval.maxMillis(),
+                            threads.getThreadCount(), memory.getHeapMemoryUsage().getUsed() / 1048576.0);
+                    last = now;
+                    lastPolls = polls;
+                }
+                
+                System.gc();
+                long heapAfter = memory.getHeapMemoryUsage().getUsed();
+                System.out.println();
+                System.out.printf(Locale.ROOT, "Fake servers: %d accepted, %d answered, %d dropped, %d malformed, %d slow loris%n",
+                        fakes.accepted.sum(), fakes.answered.sum(), fakes.dropped.sum(), fakes.malformed.sum(), fakes.trickled.sum());
+                System.out.printf(Locale.ROOT, "Polls: %d ok, %d timeout, %d error%n", successes.sum(), timeouts.sum(), errors.sum());
+                System.out.printf(Locale.ROOT, "Threads: %d before, %d peak, %d now%n",
+                        threadsBefore, threads.getPeakThreadCount(), threads.getThreadCount());
+                System.out.printf(Locale.ROOT, "Heap after GC: %.1f MB before polling, %.1f MB after (%+.1f MB)%n",
+                        heapBefore / 1048576.0, heapAfter / 1048576.0, (heapAfter - heapBefore) / 1048576.0);
+            }
+        }
+    }
+    
+    private static PollScheduler.Settings settings(Options options) {
+        // Everything except the interval and timeout follows the plugin's defaults
+        PluginConfig defaults = new PluginConfig();
+        long interval = options.intervalSeconds * 1000L;
+        return new PollScheduler.Settings(
+                interval,
+                Math.min(interval, defaults.getPollMinInterval() * 1000L),
+                Math.max(interval, defaults.getPollMaxInterval() * 1000L),
+                defaults.getMaxBackoff() * 1000L,
+                options.timeoutSeconds * 1000L,
+                defaults.getPollJitter(),
+                defaults.getBusyThreshold());
+    }
+    
+    private void onPoll(String serverName, long latencyNanos, Throwable error) {
+        if (error == null) {
+            successes.increment();
+            latencies.get().record(latencyNanos);
+            return;
+        }
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof TimeoutException || cause instanceof SocketTimeoutException) {
+            timeouts.increment();
+        } else {
+            errors.increment();
+        }
+    }
+    
+    /**
+     * Log-linear latency histogram: 8 linear sub-buckets per power of two microseconds
+     */
+    private static final class LatencyRecorder {
+        private static final int SUB_BUCKETS = 8;
+        private final AtomicLongArray buckets = new AtomicLongArray(64 * SUB_BUCKETS);
+        private final LongAdder count = new LongAdder();
+        
+        void record(long nanos) {
+            buckets.incrementAndGet(index(Math.max(1, nanos / 1000)));
+            count.increment();
+        }
+        
+        private static int index(long micros) {
+            int power = 63 - Long.numberOfLeadingZeros(micros);
+            if (power < 3) {
+                return (int) micros;
+            }
+            int sub = (int) ((micros >>> (power - 3)) & (SUB_BUCKETS - 1));
+            return power * SUB_BUCKETS + sub;
+        }
+        
+        /**
+         * @return The upper bound of a bucket in microseconds
+         */
+        private static long upperMicros(int index) {
+            if (index < SUB_BUCKETS) {
+                return index;
+            }
+            int power = index / SUB_BUCKETS;
+            int sub = index % SUB_BUCKETS;
+            return ((long) (SUB_BUCKETS + sub + 1) << (power - 3)) - 1;
+        }
+        
+        double percentileMillis(double percentile) {
+            long total = count.sum();
+            if (total == 0) {
+                return 0;
+            }
+            long target = (long) Math.ceil(total * percentile);
+            long cumulative = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                cumulative += buckets.get(i);
+                if (cumulative >= target) {
+                    return upperMicros(i) / 1000.0;
+                }
+            }
+            return maxMillis();
+        }
+        
+        double maxMillis() {
+            for (int i = buckets.length() - 1; i >= 0; i--) {
+                if (buckets.get(i) > 0) {
+                    return upperMicros(i) / 1000.0;
+                }
+            }
+            return 0;
+        }
+    }
+    
+    private static final class Options {
+        static final String USAGE = "Options: --servers N (2000) --duration SECONDS (60) --report SECONDS (5)\n"
+                + "         --interval SECONDS (5) --timeout SECONDS (3) --latency MIN-MAX ms (1-20)\n"
+                + "         --drop RATE (0.01) --malformed RATE (0.01) --slowloris RATE (0.005)\n"
+                + "         --concurrency N (max_concurrent_pings default)";
+        
+        int servers = 2000;
+        int durationSeconds = 60;
+        int reportSeconds = 5;
+        int intervalSeconds = 5;
+        int timeoutSeconds = 3;
+        int minLatency = 1;
+        int maxLatency = 20;
+        double dropRate = 0.01;
+        double malformedRate = 0.01;
+        double slowLorisRate = 0.005;
+        int concurrency = new PluginConfig().getMaxConcurrentPings();
+        
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String key = args[i];
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + key);
+                }
+                String value = args[++i];
+                try {
+                    switch (key) {
+                        case "--servers": options.servers = Integer.parseInt(value); break;
+                        case "--duration": options.durationSeconds = Integer.parseInt(value); break;
+                        case "--report": options.reportSeconds = Integer.parseInt(value); break;
+                        case "--interval": options.intervalSeconds = Integer.parseInt(value); break;
+                        case "--timeout": options.timeoutSeconds = Integer.parseInt(value); break;
+                        case "--drop": options.dropRate = Double.parseDouble(value); break;
+                        case "--malformed": options.malformedRate = Double.parseDouble(value); break;
+                        case "--slowloris": options.slowLorisRate = Double.parseDouble(value); break;
+                        case "--concurrency": options.concurrency = Integer.parseInt(value); break;
+                        case "--latency":
+                            String[] range = value.split("-", 2);
+                            options.minLatency = Integer.parseInt(range[0]);
+                            options.maxLatency = range.length > 1 ? Integer.parseInt(range[1]) : options.minLatency;
+                            break;
+                        default:
+                            throw new IllegalArgumentException("Unknown option " + key);
+                    }
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid value for " + key + ": " + value);
+                }
+            }
+            return options;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package site.choice21.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import site.choice21.PlaceholderAPIExpansionImpl;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PlaceholderAPIExpansionImpl.onRequest as called by scoreboard plugins
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PlaceholderAPIBenchmark {
+    private PlaceholderAPIExpansionImpl expansion;
+    
+    @Setup
+    public void setup() {
+        expansion = new PlaceholderAPIExpansionImpl(BenchmarkData.createPlugin());
+    }
+    
+    @Benchmark
+    public String onlineRequest() {
+        return expansion.onRequest(null, "online_survival");
+    }
+    
+    @Benchmark
+    public String unknownServerRequest() {
+        return expansion.onRequest(null, "online_unknown");
+    }
+    
+    @Benchmark
+    public String unknownPlaceholderRequest() {
+        return expansion.onRequest(null, "something_else");
+    }
+}
@@ -0,0 +1,85 @@
+package site.choice21.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import site.choice21.PlaceholderManager;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * PlaceholderManager rendering on scoreboard and tab-list strings
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PlaceholderBenchmark {
+    // The pre-template implementation, kept as a baseline
+    private static final Pattern PLACEHOLDER_PATTERN = Pattern.compile("%online_([^%]+)%");
+    
+    private StubOnlinePlayersPlugin plugin;
+    private PlaceholderManager manager;
+    
+    @Setup
+    public void setup() {
+        plugin = BenchmarkData.createPlugin();
+        manager = new PlaceholderManager(plugin);
+    }
+    
+    @Benchmark
+    public String replaceScoreboardLine() {
+        return manager.replacePlaceholders(BenchmarkData.SCOREBOARD_LINE);
+    }
+    
+    @Benchmark
+    public void replaceScoreboard(Blackhole blackhole) {
+        for (String line : BenchmarkData.SCOREBOARD) {
+            blackhole.consume(manager.replacePlaceholders(line));
+        }
+    }
+    
+    @Benchmark
+    public String replaceTabHeader() {
+        return manager.replacePlaceholders(BenchmarkData.TAB_HEADER);
+    }
+    
+    @Benchmark
+    public String replacePlainText() {
+        return manager.replacePlaceholders(BenchmarkData.PLAIN_TEXT);
+    }
+    
+    @Benchmark
+    public boolean containsPlaceholders() {
+        return manager.containsPlaceholders(BenchmarkData.TAB_HEADER);
+    }
+    
+    @Benchmark
+    public boolean containsPlaceholdersPlainText() {
+        return manager.containsPlaceholders(BenchmarkData.PLAIN_TEXT);
+    }
+    
+    @Benchmark
+    public String regexBaselineTabHeader() {
+        Matcher matcher = PLACEHOLDER_PATTERN.matcher(BenchmarkData.TAB_HEADER);
+        StringBuffer result = new StringBuffer();
+        while (matcher.find()) {
+            String replacement = String.valueOf(plugin.getPlayerCount(matcher.group(1)));
+            matcher.appendReplacement(result, Matcher.quoteReplacement(replacement));
+        }
+        matcher.appendTail(result);
+        return result.toString();
+    }
+}
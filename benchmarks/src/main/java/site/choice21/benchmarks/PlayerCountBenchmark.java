@@ -0,0 +1,68 @@
+package site.choice21.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AbstractOnlinePlayersPlugin.getPlayerCount with many concurrent readers
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PlayerCountBenchmark {
+    private StubOnlinePlayersPlugin plugin;
+    private int counter;
+    
+    @Setup
+    public void setup() {
+        plugin = BenchmarkData.createPlugin();
+    }
+    
+    @Benchmark
+    @Threads(1)
+    public int singleReader() {
+        return plugin.getPlayerCount("survival");
+    }
+    
+    @Benchmark
+    @Threads(8)
+    public int concurrentReaders() {
+        return plugin.getPlayerCount("survival");
+    }
+    
+    @Benchmark
+    @Threads(8)
+    public int concurrentReadersUnconfigured() {
+        return plugin.getPlayerCount("unknown");
+    }
+    
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(7)
+    public int readWhileUpdating() {
+        return plugin.getPlayerCount("survival");
+    }
+    
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(1)
+    public void updateWhileReading() {
+        plugin.updateCount("survival", (counter++) & 1023);
+    }
+}
@@ -0,0 +1,64 @@
+package site.choice21.benchmarks;
+
+import site.choice21.AbstractOnlinePlayersPlugin;
+import site.choice21.PlayerCountStore;
+import site.choice21.PluginLogger;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Platform-free plugin used to run benchmarks without a Velocity or Paper server
+ */
+public class StubOnlinePlayersPlugin extends AbstractOnlinePlayersPlugin {
+    private static final PluginLogger NO_OP_LOGGER = new PluginLogger() {
+        @Override
+        public void info(String message) {
+        }
+        
+        @Override
+        public void warn(String message) {
+        }
+        
+        @Override
+        public void error(String message) {
+        }
+        
+        @Override
+        public void error(String message, Throwable throwable) {
+        }
+    };
+    
+    private final Path dataDirectory;
+    
+    public StubOnlinePlayersPlugin(List<String> serverNames) {
+        this(serverNames, Path.of("."));
+    }
+    
+    public StubOnlinePlayersPlugin(List<String> serverNames, Path dataDirectory) {
+        this.dataDirectory = dataDirectory;
+        this.countStore = new PlayerCountStore(serverNames);
+    }
+    
+    /**
+     * Store a player count the way a platform updater would
+     */
+    public void updateCount(String serverName, int count) {
+        setPlayerCount(serverName, count);
+    }
+    
+    @Override
+    protected PluginLogger getPluginLogger() {
+        return NO_OP_LOGGER;
+    }
+    
+    @Override
+    public Path getDataDirectory() {
+        return dataDirectory;
+    }
+    
+    @Override
+    public Object getLogger() {
+        return NO_OP_LOGGER;
+    }
+}
@@ -0,0 +1,416 @@
+package site.choice21;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Abstract base class with shared functionality for both Velocity and Paper
+ */
+public abstract class AbstractOnlinePlayersPlugin implements OnlinePlayersPlugin {
+    /** Permission needed to run /vplaceholders */
+    public static final String COMMAND_PERMISSION = "vplaceholders.stats";
+    
+    // Holds both the count slots and the config they were built from, so a reload swaps them together
+    protected volatile PlayerCountStore countStore = new PlayerCountStore(List.of());
+    protected PlaceholderManager placeholderManager;
+    protected final PluginMetrics metrics = new PluginMetrics();
+    protected final CountHistory history = new CountHistory();
+    private final CountNotifier countNotifier;
+    private ConfigWatcher configWatcher;
+    private MetricsEndpoint metricsEndpoint;
+    
+    public AbstractOnlinePlayersPlugin() {
+        this.placeholderManager = new PlaceholderManager(this);
+        this.countNotifier = new CountNotifier(this, "VelocityPlaceholders Events");
+        countNotifier.bind(countStore);
+    }
+    
+    protected void loadConfig() {
+        File configFile = getDataDirectory().resolve("config.toml").toFile();
+        
+        if (!configFile.exists()) {
+            // Create default config
+            try {
+                getDataDirectory().toFile().mkdirs();
+                try (InputStream in = getClass().getResourceAsStream("/config.toml")) {
+                    if (in != null) {
+                        Files.copy(in, configFile.toPath());
+                    } else {
+                        // Create a default config if resource doesn't exist
+                        createDefaultConfig(configFile);
+                    }
+                }
+            } catch (IOException e) {
+                getPluginLogger().error("Failed to create default config file", e);
+                return;
+            }
+        }
+        
+        PluginConfig config;
+        try {
+            config = PluginConfig.load(configFile.toPath());
+            getPluginLogger().info("Loaded configuration with " + config.getServers().size() + " servers");
+        } catch (IOException e) {
+            getPluginLogger().error("Failed to load config file", e);
+            config = new PluginConfig();
+        }
+        countStore = new PlayerCountStore(config);
+        countNotifier.bind(countStore);
+        restoreSnapshot();
+    }
+    
+    /**
+     * Fill in the last known counts from counts.dat so placeholders aren't 0 until the first poll
+     */
+    private void restoreSnapshot() {
+        PluginConfig config = getConfig();
+        if (config.getSnapshotMaxAge() <= 0) {
+            return;
+        }
+        try {
+            int restored = CountSnapshot.restore(getSnapshotFile(), countStore, config.getSnapshotMaxAge() * 1000L);
+            if (restored > 0) {
+                getPluginLogger().info("Restored " + restored + " player counts from the last snapshot");
+            }
+        } catch (IOException e) {
+            getPluginLogger().warn("Failed to read count snapshot: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Write the current counts to counts.dat, called periodically and on shutdown
+     */
+    protected void saveSnapshot() {
+        try {
+            CountSnapshot.write(getSnapshotFile(), countStore);
+        } catch (IOException e) {
+            getPluginLogger().warn("Failed to save count snapshot: " + e.getMessage());
+        }
+    }
+    
+    private Path getSnapshotFile() {
+        return getDataDirectory().resolve("counts.dat");
+    }
+    
+    /**
+     * Watch config.toml and apply changes without a restart, if hot_reload is enabled
+     */
+    protected void startConfigWatcher() {
+        if (!getConfig().isHotReload()) {
+            return;
+        }
+        try {
+            configWatcher = new ConfigWatcher(getDataDirectory().resolve("config.toml"), this::reloadConfig, getPluginLogger());
+        } catch (IOException e) {
+            getPluginLogger().error("Failed to watch config file, changes will need a restart", e);
+        }
+    }
+    
+    protected void stopConfigWatcher() {
+        if (configWatcher != null) {
+            configWatcher.close();
+            configWatcher = null;
+        }
+    }
+    
+    /**
+     * Re-read config.toml and swap in the new configuration and count slots in one step
+     * Counts for servers that are still configured carry over. The new store is published before
+     * they are copied and the old one passes on any write it still receives, so a count stored
+     * during the swap isn't overwritten by the older copy. If the new file is invalid,
+     * the current configuration stays in place.
+     */
+    public synchronized void reloadConfig() {
+        PluginConfig loaded;
+        try {
+            loaded = PluginConfig.load(getDataDirectory().resolve("config.toml"));
+        } catch (IOException e) {
+            getPluginLogger().error("Failed to reload config file, keeping the current configuration", e);
+            return;
+        }
+        
+        PlayerCountStore previous = countStore;
+        PlayerCountStore next = new PlayerCountStore(loaded);
+        previous.handOffTo(next);
+        countStore = next;
+        countNotifier.bind(next);
+        next.copyCountsFrom(previous);
+        metrics.retainServers(loaded.getServers().keySet());
+        getPluginLogger().info("Reloaded configuration with " + loaded.getServers().size() + " servers");
+        
+        onConfigReloaded(previous.getConfig(), loaded);
+    }
+    
+    /**
+     * Called after a reload has been applied, so platforms can update what they poll or listen to
+     * @param previous The configuration that was replaced
+     * @param current The configuration now in effect
+     */
+    protected void onConfigReloaded(PluginConfig previous, PluginConfig current) {
+    }
+    
+    /**
+     * Serve Prometheus metrics over HTTP, if metrics_port is set
+     */
+    protected void startMetricsEndpoint() {
+        PluginConfig config = getConfig();
+        if (config.getMetricsPort() <= 0) {
+            return;
+        }
+        try {
+            metricsEndpoint = new MetricsEndpoint(config.getMetricsHost(), config.getMetricsPort(),
+                    () -> metrics.toPrometheus(countStore));
+            getPluginLogger().info("Serving metrics on http://" + config.getMetricsHost() + ":" + config.getMetricsPort() + "/metrics");
+        } catch (IOException e) {
+            getPluginLogger().error("Failed to start metrics endpoint", e);
+        }
+    }
+    
+    protected void stopMetricsEndpoint() {
+        if (metricsEndpoint != null) {
+            metricsEndpoint.close();
+            metricsEndpoint = null;
+        }
+    }
+    
+    /**
+     * Start recording counts for the peak, min and avg placeholders
+     */
+    protected void startHistory() {
+        history.start(() -> countStore, getPluginLogger(), "VelocityPlaceholders History");
+    }
+    
+    protected void stopHistory() {
+        history.close();
+    }
+    
+    /**
+     * Run a /vplaceholders subcommand
+     * @param args The command arguments
+     * @return The lines to send back to the sender
+     */
+    public List<String> executeCommand(String[] args) {
+        if (args.length == 1 && args[0].equalsIgnoreCase("stats")) {
+            return metrics.formatStats(countStore);
+        }
+        return List.of("Usage: /vplaceholders stats");
+    }
+    
+    /**
+     * Suggest completions for a /vplaceholders subcommand
+     * @param args The arguments typed so far
+     * @return The matching subcommands
+     */
+    public List<String> suggestCommand(String[] args) {
+        if (args.length <= 1 && "stats".startsWith(args.length == 0 ? "" : args[0].toLowerCase(Locale.ROOT))) {
+            return List.of("stats");
+        }
+        return List.of();
+    }
+    
+    /**
+     * Get the poll and placeholder statistics
+     * @return The metrics for this plugin
+     */
+    public PluginMetrics getMetrics() {
+        return metrics;
+    }
+    
+    /**
+     * Get the rolling peak, min and avg of every count
+     * @return The count history for this plugin
+     */
+    public CountHistory getHistory() {
+        return history;
+    }
+    
+    /**
+     * Get the configuration currently in effect
+     * @return The loaded configuration, empty if none has been loaded
+     */
+    public PluginConfig getConfig() {
+        return countStore.getConfig();
+    }
+    
+    /**
+     * Build poll scheduler settings for a server, applying its own interval and timeout over the global ones
+     * @param config The configuration in effect
+     * @param serverName The configured server name
+     * @return The scheduler settings for the server
+     */
+    protected PollScheduler.Settings pollSettings(PluginConfig config, String serverName) {
+        ServerSettings server = config.getServer(serverName);
+        int interval = server != null && server.getPollInterval() > 0 ? server.getPollInterval() : config.getPollInterval();
+        return new PollScheduler.Settings(
+                interval * 1000L,
+                Math.min(interval, config.getPollMinInterval()) * 1000L,
+                Math.max(interval, config.getPollMaxInterval()) * 1000L,
+                config.getMaxBackoff() * 1000L,
+                pingTimeoutMillis(config, serverName),
+                config.getPollJitter(),
+                config.getBusyThreshold());
+    }
+    
+    /**
+     * @param config The configuration in effect
+     * @param serverName The configured server name
+     * @return The server's own ping timeout, or the global one, in milliseconds
+     */
+    protected static long pingTimeoutMillis(PluginConfig config, String serverName) {
+        ServerSettings server = config.getServer(serverName);
+        int timeout = server != null && server.getTimeout() > 0 ? server.getTimeout() : config.getPingTimeout();
+        return timeout * 1000L;
+    }
+    
+    /**
+     * Group servers that are polled from the same target, so each target is polled once for all of them
+     * @param serverNames The configured server names to poll
+     * @param targetOf Gives the target a server is polled from
+     * @return The names sharing each target, keyed by the first of them, which is the one to poll
+     */
+    protected static Map<String, List<String>> groupByTarget(Collection<String> serverNames, Function<String, String> targetOf) {
+        Map<String, List<String>> byTarget = new LinkedHashMap<>();
+        for (String serverName : serverNames) {
+            byTarget.computeIfAbsent(targetOf.apply(serverName), key -> new ArrayList<>()).add(serverName);
+        }
+        Map<String, List<String>> result = new LinkedHashMap<>();
+        for (List<String> names : byTarget.values()) {
+            result.put(names.get(0), List.copyOf(names));
+        }
+        return result;
+    }
+    
+    /**
+     * Build poll scheduler settings for several servers
+     * @param config The configuration in effect
+     * @param serverNames The configured server names to poll
+     * @return Scheduler settings keyed by server name
+     */
+    protected Map<String, PollScheduler.Settings> pollSettings(PluginConfig config, Collection<String> serverNames) {
+        Map<String, PollScheduler.Settings> result = new LinkedHashMap<>();
+        for (String serverName : serverNames) {
+            result.put(serverName, pollSettings(config, serverName));
+        }
+        return result;
+    }
+    
+    protected void createDefaultConfig(File configFile) throws IOException {
+        String defaultConfig = "# OnlinePlayersPlugin Configuration\n" +
+                "# Add servers you want to track player counts for\n" +
+                "# Format: server_name = \"server_id\"\n" +
+                "# On Velocity: server_id is the registered server name\n" +
+                "# On Paper: server_id is the server address (host:port) or BungeeCord server name\n" +
+                "\n" +
+                "[servers]\n" +
+                "modernprac = \"modernprac\"\n";
+        Files.write(configFile.toPath(), defaultConfig.getBytes());
+    }
+    
+    @Override
+    public int getPlayerCount(String serverName) {
+        return countStore.get(serverName);
+    }
+    
+    @Override
+    public CountSubscription subscribe(String name, CountListener listener) {
+        return countNotifier.subscribe(name, countNotifier.getDefaultExecutor(), listener);
+    }
+    
+    @Override
+    public CountSubscription subscribe(String name, Executor executor, CountListener listener) {
+        return countNotifier.subscribe(name, executor, listener);
+    }
+    
+    @Override
+    public CountSubscription subscribeAll(CountListener listener) {
+        return countNotifier.subscribe(null, countNotifier.getDefaultExecutor(), listener);
+    }
+    
+    @Override
+    public CountSubscription subscribeAll(Executor executor, CountListener listener) {
+        return countNotifier.subscribe(null, executor, listener);
+    }
+    
+    /**
+     * Store a new player count, safe to call from any thread
+     * @param serverName The configured server name
+     * @param count The player count
+     */
+    protected void setPlayerCount(String serverName, int count) {
+        countStore.set(serverName, count);
+    }
+    
+    /**
+     * Store a successful ping: count, player limit, latency and version
+     * @param serverName The configured server name
+     * @param status What the server reported
+     */
+    protected void setServerStatus(String serverName, ServerStatus status) {
+        PlayerCountStore store = countStore;
+        int slot = store.slotOf(serverName);
+        if (slot >= 0) {
+            store.setStatus(slot, status);
+        } else {
+            store.set(serverName, status.getOnline());
+        }
+    }
+    
+    /**
+     * Store a failed ping, the server shows as offline with 0 players
+     * @param serverName The configured server name
+     */
+    protected void setServerOffline(String serverName) {
+        PlayerCountStore store = countStore;
+        int slot = store.slotOf(serverName);
+        if (slot >= 0) {
+            store.setOffline(slot);
+        } else {
+            store.set(serverName, 0);
+        }
+    }
+    
+    /**
+     * Get the store holding the current player counts
+     * @return The count store for the loaded configuration
+     */
+    public PlayerCountStore getCountStore() {
+        return countStore;
+    }
+    
+    @Override
+    public String replacePlaceholders(String text) {
+        return placeholderManager.replacePlaceholders(text);
+    }
+    
+    @Override
+    public CountView getCountView() {
+        return countStore.view(history);
+    }
+    
+    @Override
+    public PlaceholderBatch compileBatch(List<String> texts) {
+        return PlaceholderBatch.compile(texts);
+    }
+    
+    /**
+     * Abstract method to get logger - implemented by platform-specific classes
+     */
+    protected abstract PluginLogger getPluginLogger();
+    
+    /**
+     * Abstract method to get data directory - implemented by platform-specific classes
+     */
+    public abstract Path getDataDirectory();
+}
+
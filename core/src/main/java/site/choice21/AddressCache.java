@@ -0,0 +1,139 @@
+package site.choice21;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Resolves server endpoints off the polling threads and remembers the result
+ * Once an endpoint has been resolved, callers always get the cached answer straight away. When it
+ * expires it is refreshed in the background while the old answer keeps being served, and a failed
+ * refresh keeps the last good address. Lookups that fail are cached too, for a shorter time, so a
+ * missing hostname costs one background lookup per negative TTL rather than one per poll.
+ */
+public final class AddressCache implements AutoCloseable {
+    private static final int RESOLVER_THREADS = 2;
+    
+    private final ExecutorService executor;
+    private final Map<ServerEndpoint, Entry> entries = new ConcurrentHashMap<>();
+    private volatile long ttlNanos;
+    private volatile long negativeTtlNanos;
+    
+    /**
+     * @param ttlSeconds How long a resolved address is used before it is looked up again
+     * @param negativeTtlSeconds How long a failed lookup is remembered
+     * @param threadName Name for the resolver threads
+     */
+    public AddressCache(int ttlSeconds, int negativeTtlSeconds, String threadName) {
+        setTtl(ttlSeconds, negativeTtlSeconds);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(RESOLVER_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, threadName + " #" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Change the TTLs, applied to lookups from now on
+     */
+    public void setTtl(int ttlSeconds, int negativeTtlSeconds) {
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(Math.max(1, ttlSeconds));
+        this.negativeTtlNanos = TimeUnit.SECONDS.toNanos(Math.max(1, negativeTtlSeconds));
+    }
+    
+    /**
+     * Get the address of an endpoint
+     * @param endpoint The endpoint to resolve
+     * @return A future that is already complete unless this endpoint has never been resolved,
+     *         failed with an UnknownHostException if the host doesn't resolve
+     */
+    public CompletableFuture<InetSocketAddress> resolve(ServerEndpoint endpoint) {
+        Entry entry = entries.computeIfAbsent(endpoint, Entry::new);
+        Resolved current = entry.resolved;
+        if (current == null) {
+            return lookup(entry).thenCompose(resolved -> resolved.future);
+        }
+        if (System.nanoTime() - current.expiresAtNanos >= 0) {
+            lookup(entry);
+        }
+        return current.future;
+    }
+    
+    /**
+     * Forget endpoints that are no longer configured
+     * @param endpoints The endpoints to keep
+     */
+    public void retain(Collection<ServerEndpoint> endpoints) {
+        entries.keySet().retainAll(endpoints);
+    }
+    
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        entries.clear();
+    }
+    
+    /**
+     * Start a background lookup, or join the one already running
+     */
+    private CompletableFuture<Resolved> lookup(Entry entry) {
+        synchronized (entry) {
+            if (entry.lookup == null || entry.lookup.isDone()) {
+                entry.lookup = CompletableFuture.supplyAsync(() -> resolveNow(entry), executor);
+            }
+            return entry.lookup;
+        }
+    }
+    
+    private Resolved resolveNow(Entry entry) {
+        ServerEndpoint endpoint = entry.endpoint;
+        long now = System.nanoTime();
+        Resolved result;
+        try {
+            InetAddress address = InetAddress.getByName(endpoint.getHost());
+            result = new Resolved(CompletableFuture.completedFuture(new InetSocketAddress(address, endpoint.getPort())),
+                    now + ttlNanos, true);
+        } catch (UnknownHostException | SecurityException e) {
+            Resolved previous = entry.resolved;
+            // Keep using the last good address while the host can't be resolved
+            result = previous != null && previous.ok
+                    ? new Resolved(previous.future, now + negativeTtlNanos, true)
+                    : new Resolved(CompletableFuture.failedFuture(e), now + negativeTtlNanos, false);
+        }
+        entry.resolved = result;
+        return result;
+    }
+    
+    private static final class Entry {
+        final ServerEndpoint endpoint;
+        volatile Resolved resolved;
+        // Guarded by the entry
+        CompletableFuture<Resolved> lookup;
+        
+        Entry(ServerEndpoint endpoint) {
+            this.endpoint = endpoint;
+        }
+    }
+    
+    private static final class Resolved {
+        // Already complete, shared by every caller until the next lookup
+        final CompletableFuture<InetSocketAddress> future;
+        final long expiresAtNanos;
+        final boolean ok;
+        
+        Resolved(CompletableFuture<InetSocketAddress> future, long expiresAtNanos, boolean ok) {
+            this.future = future;
+            this.expiresAtNanos = expiresAtNanos;
+            this.ok = ok;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package site.choice21;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Asks the proxy for backend player counts with BungeeCord "PlayerCount" plugin messages
+ * Requests made while a flush is pending are sent together over one player's connection, and a
+ * server with a request still in flight shares its answer instead of being asked again.
+ */
+public final class BungeeCordCounts {
+    /** Plugin messaging channel understood by BungeeCord and by Velocity with bungee-plugin-message-channel on */
+    public static final String CHANNEL = "BungeeCord";
+    private static final String PLAYER_COUNT = "PlayerCount";
+    
+    private final Executor flushExecutor;
+    private final Carrier carrier;
+    // Server name (lower case) -> request waiting for its reply
+    private final Map<String, Request> pending = new ConcurrentHashMap<>();
+    private final Queue<Request> queued = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    
+    /**
+     * Sends a plugin message to the proxy
+     */
+    @FunctionalInterface
+    public interface Carrier {
+        /**
+         * @param message The plugin message payload
+         * @return false if there is no connection to send it over, because nobody is online
+         */
+        boolean send(byte[] message);
+    }
+    
+    /**
+     * Thrown into requests that couldn't be sent because no player is online to carry them
+     * A skipped poll rather than a failed one, so the server doesn't back off while the network is empty.
+     */
+    public static final class NoCarrierException extends PollScheduler.SkippedException {
+        private static final long serialVersionUID = 1L;
+        
+        NoCarrierException() {
+            super("No player online to carry BungeeCord requests");
+        }
+    }
+    
+    /**
+     * @param flushExecutor Runs flushes, on the thread the carrier has to be used from
+     * @param carrier Sends the requests
+     */
+    public BungeeCordCounts(Executor flushExecutor, Carrier carrier) {
+        this.flushExecutor = flushExecutor;
+        this.carrier = carrier;
+    }
+    
+    /**
+     * Ask the proxy for a server's player count
+     * @param serverName The server's name on the proxy
+     * @param timeoutMillis How long a request in flight is shared before a new one is sent
+     * @return A future completed with the count when the reply arrives
+     */
+    public CompletableFuture<Integer> request(String serverName, long timeoutMillis) {
+        long now = System.nanoTime();
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        Request[] created = new Request[1];
+        Request request = pending.compute(serverName.toLowerCase(Locale.ROOT), (key, existing) -> {
+            if (existing != null && !existing.future.isDone() && now - existing.sentNanos < timeoutNanos) {
+                return existing;
+            }
+            created[0] = new Request(serverName, now);
+            return created[0];
+        });
+        if (created[0] != null) {
+            queued.add(created[0]);
+            if (flushScheduled.compareAndSet(false, true)) {
+                flushExecutor.execute(this::flush);
+            }
+        }
+        return request.future;
+    }
+    
+    private void flush() {
+        flushScheduled.set(false);
+        Request request;
+        while ((request = queued.poll()) != null) {
+            if (request.future.isDone()) {
+                continue;
+            }
+            if (!carrier.send(encode(request.serverName))) {
+                fail(request);
+                while ((request = queued.poll()) != null) {
+                    fail(request);
+                }
+                return;
+            }
+        }
+    }
+    
+    private void fail(Request request) {
+        pending.remove(request.serverName.toLowerCase(Locale.ROOT), request);
+        request.future.completeExceptionally(new NoCarrierException());
+    }
+    
+    /**
+     * Handle a message received on {@link #CHANNEL}
+     * @param message The plugin message payload
+     * @return true if it was a PlayerCount reply
+     */
+    public boolean handle(byte[] message) {
+        String serverName;
+        int count;
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(message))) {
+            if (!in.readUTF().equals(PLAYER_COUNT)) {
+                return false;
+            }
+            serverName = in.readUTF();
+            count = in.readInt();
+        } catch (IOException e) {
+            return false;
+        }
+        Request request = pending.remove(serverName.toLowerCase(Locale.ROOT));
+        if (request != null) {
+            request.future.complete(Math.max(0, count));
+        }
+        return true;
+    }
+    
+    /**
+     * Fail everything still waiting, for shutdown
+     */
+    public void close() {
+        for (Request request : pending.values()) {
+            request.future.cancel(false);
+        }
+        pending.clear();
+        queued.clear();
+    }
+    
+    private static byte[] encode(String serverName) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32 + serverName.length());
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(PLAYER_COUNT);
+            out.writeUTF(serverName);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+    
+    private static final class Request {
+        final String serverName;
+        final long sentNanos;
+        final CompletableFuture<Integer> future = new CompletableFuture<>();
+        
+        Request(String serverName, long sentNanos) {
+            this.serverName = serverName;
+            this.sentNanos = sentNanos;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package site.choice21;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches a file with a WatchService and runs a callback when it changes
+ * Bursts of events, such as an editor writing a file in several steps, are collapsed into one callback.
+ */
+public final class ConfigWatcher implements AutoCloseable {
+    private static final long SETTLE_MILLIS = 500;
+    
+    private final Path file;
+    private final Runnable onChange;
+    private final PluginLogger logger;
+    private final WatchService watchService;
+    private final Thread thread;
+    
+    public ConfigWatcher(Path file, Runnable onChange, PluginLogger logger) throws IOException {
+        this.file = file.toAbsolutePath();
+        this.onChange = onChange;
+        this.logger = logger;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.file.getParent().register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        this.thread = new Thread(this::run, "VelocityPlaceholders Config Watcher");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+    
+    private void run() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = drain(key);
+                
+                // Wait for writes to settle before reading the file
+                WatchKey more;
+                while ((more = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= drain(more);
+                }
+                
+                if (changed) {
+                    try {
+                        onChange.run();
+                    } catch (RuntimeException e) {
+                        logger.error("Failed to apply configuration change", e);
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closed
+        }
+    }
+    
+    private boolean drain(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            Object context = event.context();
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || (context instanceof Path && file.getFileName().equals(context))) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+    
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            // Ignore
+        }
+        thread.interrupt();
+    }
+}
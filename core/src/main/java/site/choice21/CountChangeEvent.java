@@ -0,0 +1,39 @@
+package site.choice21;
+
+/**
+ * A change in one player count
+ */
+public final class CountChangeEvent {
+    private final String serverName;
+    private final int previousCount;
+    private final int count;
+    
+    public CountChangeEvent(String serverName, int previousCount, int count) {
+        this.serverName = serverName;
+        this.previousCount = previousCount;
+        this.count = count;
+    }
+    
+    /**
+     * @return The name the listener subscribed to, or the server's name for listeners on all servers
+     */
+    public String getServerName() {
+        return serverName;
+    }
+    
+    /**
+     * @return The count last delivered to the listener
+     */
+    public int getPreviousCount() {
+        return previousCount;
+    }
+    
+    public int getCount() {
+        return count;
+    }
+    
+    @Override
+    public String toString() {
+        return serverName + ": " + previousCount + " -> " + count;
+    }
+}
@@ -0,0 +1,350 @@
+package site.choice21;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Rolling peak, minimum and average of every slot's count, for %online_peak_<server>_1h% and friends
+ * Counts are sampled every few seconds into preallocated rings at three resolutions: raw samples,
+ * minutes and hours. Each ring keeps a running sum and monotonic queues for its minimum and maximum,
+ * so adding a bucket and reading a statistic are both constant time and memory never grows.
+ * After each sample the statistics are published as one array, so readers never lock.
+ */
+public final class CountHistory implements AutoCloseable {
+    /** Seconds between samples, so the 5m window holds the last 60 samples */
+    public static final int SAMPLE_SECONDS = 5;
+    // Indexed by type and window, a statistic's index is window * TYPES.length + type
+    static final String[] TYPES = { "peak", "min", "avg" };
+    static final String[] WINDOWS = { "5m", "1h", "24h", "7d", "today" };
+    private static final int PEAK = 0;
+    private static final int MIN = 1;
+    private static final int STAT_COUNT = TYPES.length * WINDOWS.length;
+    
+    private final Map<String, Series> series = new ConcurrentHashMap<>();
+    private final ZoneId zone = ZoneId.systemDefault();
+    private ScheduledExecutorService executor;
+    // Bumped after every sample, so rendered text that shows a statistic knows when to refresh
+    private volatile int revision;
+    
+    /**
+     * A statistic placeholder name split into the slot name and the statistic
+     */
+    static final class Stat {
+        final String name;
+        final int index;
+        
+        Stat(String name, int index) {
+            this.name = name;
+            this.index = index;
+        }
+    }
+    
+    /**
+     * Split a name like "peak_lobby_1h" into "lobby" and the statistic
+     * @param name The name after "online_"
+     * @return The parsed statistic, or null if the name isn't one
+     */
+    static Stat parse(String name) {
+        for (int type = 0; type < TYPES.length; type++) {
+            String prefix = TYPES[type];
+            if (!name.startsWith(prefix) || name.length() <= prefix.length() || name.charAt(prefix.length()) != '_') {
+                continue;
+            }
+            for (int window = 0; window < WINDOWS.length; window++) {
+                String suffix = WINDOWS[window];
+                int baseEnd = name.length() - suffix.length() - 1;
+                if (baseEnd > prefix.length() + 1 && name.endsWith(suffix) && name.charAt(baseEnd) == '_') {
+                    return new Stat(name.substring(prefix.length() + 1, baseEnd), window * TYPES.length + type);
+                }
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Start sampling
+     * @param stores Supplies the current count store on every sample
+     * @param logger Reports a failed sample, which would otherwise stop sampling silently
+     * @param threadName Name for the sampling thread
+     */
+    public synchronized void start(Supplier<PlayerCountStore> stores, PluginLogger logger, String threadName) {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(() -> {
+            try {
+                sample(stores.get(), System.currentTimeMillis());
+            } catch (RuntimeException e) {
+                logger.error("Failed to sample player counts", e);
+            }
+        }, 0, SAMPLE_SECONDS, TimeUnit.SECONDS);
+    }
+    
+    @Override
+    public synchronized void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+    
+    /**
+     * Record every slot's current count
+     * @param store The store to sample
+     * @param nowMillis Epoch millis of the sample
+     */
+    void sample(PlayerCountStore store, long nowMillis) {
+        long day = LocalDate.ofInstant(Instant.ofEpochMilli(nowMillis), zone).toEpochDay();
+        Set<String> sampled = new HashSet<>();
+        for (int slot = 0; slot < store.slotCount(); slot++) {
+            String name = store.slotName(slot);
+            sampled.add(name);
+            series.computeIfAbsent(name, key -> new Series()).record(store.get(slot), nowMillis, day);
+        }
+        // Series of servers removed by a reload go with them
+        series.keySet().retainAll(sampled);
+        revision++;
+    }
+    
+    /**
+     * @return A number that changes after every sample
+     */
+    int getRevision() {
+        return revision;
+    }
+    
+    int get(String slotName, int statIndex) {
+        Series current = series.get(slotName);
+        return current == null ? 0 : current.stats[statIndex];
+    }
+    
+    /**
+     * All history for one slot, written only by the sampling thread
+     */
+    private static final class Series {
+        final Window samples = new Window(60);
+        // One bucket short of the window, the bucket in progress makes up the rest
+        final Window lastHour = new Window(59);
+        final Window lastDay = new Window(23);
+        final Window lastWeek = new Window(167);
+        final Bucket minute = new Bucket();
+        final Bucket hour = new Bucket();
+        final Bucket today = new Bucket();
+        final Bucket sample = new Bucket();
+        long minuteIndex = -1;
+        long hourIndex = -1;
+        long day = -1;
+        volatile int[] stats = new int[STAT_COUNT];
+        
+        void record(int count, long nowMillis, long currentDay) {
+            long currentMinute = nowMillis / 60_000;
+            if (currentMinute != minuteIndex) {
+                if (minuteIndex >= 0) {
+                    lastHour.push(minute, currentMinute - minuteIndex);
+                }
+                minute.reset();
+                minuteIndex = currentMinute;
+            }
+            long currentHour = currentMinute / 60;
+            if (currentHour != hourIndex) {
+                if (hourIndex >= 0) {
+                    lastDay.push(hour, currentHour - hourIndex);
+                    lastWeek.push(hour, currentHour - hourIndex);
+                }
+                hour.reset();
+                hourIndex = currentHour;
+            }
+            if (currentDay != day) {
+                today.reset();
+                day = currentDay;
+            }
+            
+            sample.reset();
+            sample.add(count);
+            samples.push(sample, 1);
+            minute.add(count);
+            hour.add(count);
+            today.add(count);
+            
+            int[] next = new int[STAT_COUNT];
+            publish(next, 0, samples, null);
+            publish(next, 1, lastHour, minute);
+            publish(next, 2, lastDay, hour);
+            publish(next, 3, lastWeek, hour);
+            publish(next, 4, null, today);
+            stats = next;
+        }
+        
+        private static void publish(int[] stats, int window, Window complete, Bucket partial) {
+            int max = Integer.MIN_VALUE;
+            int min = Integer.MAX_VALUE;
+            long sum = 0;
+            long samples = 0;
+            if (complete != null && complete.samples > 0) {
+                max = complete.max();
+                min = complete.min();
+                sum = complete.sum;
+                samples = complete.samples;
+            }
+            if (partial != null && partial.samples > 0) {
+                max = Math.max(max, partial.max);
+                min = Math.min(min, partial.min);
+                sum += partial.sum;
+                samples += partial.samples;
+            }
+            int base = window * TYPES.length;
+            if (samples > 0) {
+                stats[base + PEAK] = max;
+                stats[base + MIN] = min;
+                stats[base + 2] = (int) Math.round((double) sum / samples);
+            }
+        }
+    }
+    
+    private static final class Bucket {
+        int min;
+        int max;
+        long sum;
+        int samples;
+        
+        void add(int count) {
+            if (samples == 0 || count < min) {
+                min = count;
+            }
+            if (samples == 0 || count > max) {
+                max = count;
+            }
+            sum += count;
+            samples++;
+        }
+        
+        void reset() {
+            min = 0;
+            max = 0;
+            sum = 0;
+            samples = 0;
+        }
+    }
+    
+    /**
+     * The last few buckets at one resolution, with running sum and min/max queues
+     */
+    private static final class Window {
+        final int capacity;
+        // Ring of bucket sums and sample counts, for taking the oldest bucket back out
+        final long[] sums;
+        final int[] counts;
+        // Sequence number of the next bucket
+        long sequence;
+        long sum;
+        long samples;
+        final MonotonicQueue maxima;
+        final MonotonicQueue minima;
+        
+        Window(int capacity) {
+            this.capacity = capacity;
+            this.sums = new long[capacity];
+            this.counts = new int[capacity];
+            this.maxima = new MonotonicQueue(capacity, true);
+            this.minima = new MonotonicQueue(capacity, false);
+        }
+        
+        /**
+         * Append a finished bucket, followed by empty ones for any periods that had no samples
+         * @param steps Periods since the previous bucket, 1 when nothing was skipped
+         */
+        void push(Bucket bucket, long steps) {
+            append(bucket.sum, bucket.samples, bucket.min, bucket.max);
+            long empty = Math.min(steps - 1, capacity);
+            for (long i = 0; i < empty; i++) {
+                append(0, 0, 0, 0);
+            }
+        }
+        
+        private void append(long bucketSum, int bucketSamples, int min, int max) {
+            int index = (int) (sequence % capacity);
+            if (sequence >= capacity) {
+                sum -= sums[index];
+                samples -= counts[index];
+            }
+            sums[index] = bucketSum;
+            counts[index] = bucketSamples;
+            sum += bucketSum;
+            samples += bucketSamples;
+            // Expire first so the queues never hold more than the window
+            long oldest = sequence - capacity + 1;
+            maxima.expire(oldest);
+            minima.expire(oldest);
+            if (bucketSamples > 0) {
+                maxima.offer(sequence, max);
+                minima.offer(sequence, min);
+            }
+            sequence++;
+        }
+        
+        int max() {
+            return maxima.peek();
+        }
+        
+        int min() {
+            return minima.peek();
+        }
+    }
+    
+    /**
+     * Ring-backed queue of (sequence, value) whose values stay sorted, so the head is the window's extreme
+     */
+    private static final class MonotonicQueue {
+        final long[] sequences;
+        final int[] values;
+        final boolean maximum;
+        int head;
+        int size;
+        
+        MonotonicQueue(int capacity, boolean maximum) {
+            this.sequences = new long[capacity];
+            this.values = new int[capacity];
+            this.maximum = maximum;
+        }
+        
+        void offer(long sequence, int value) {
+            // Drop entries from the tail that can never be the extreme again
+            while (size > 0) {
+                int last = values[(head + size - 1) % values.length];
+                if (maximum ? last > value : last < value) {
+                    break;
+                }
+                size--;
+            }
+            int tail = (head + size) % values.length;
+            sequences[tail] = sequence;
+            values[tail] = value;
+            size++;
+        }
+        
+        void expire(long oldest) {
+            while (size > 0 && sequences[head] < oldest) {
+                head = (head + 1) % values.length;
+                size--;
+            }
+        }
+        
+        int peek() {
+            return values[head];
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package site.choice21;
+
+/**
+ * Receives player count changes from {@link OnlinePlayersPlugin#subscribe(String, CountListener)}
+ */
+@FunctionalInterface
+public interface CountListener {
+    /**
+     * Called when a count differs from the one last delivered to this listener
+     * Changes that happen before the listener runs are merged into one event, and a count that
+     * changes and changes back in the meantime isn't reported at all.
+     * @param event The change
+     */
+    void onCountChange(CountChangeEvent event);
+}
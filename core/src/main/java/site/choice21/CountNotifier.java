@@ -0,0 +1,175 @@
+package site.choice21;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Delivers count changes to subscribed listeners
+ * The store reports each changed server slot. That only marks the affected subscriptions and queues
+ * one delivery per subscription on its executor, so a burst of changes costs the listener one call.
+ * The delivery reads the count at that moment and compares it with the last one it reported.
+ */
+final class CountNotifier {
+    private final AbstractOnlinePlayersPlugin plugin;
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    // Runs listeners that didn't ask for an executor, its thread exits when idle
+    private final ThreadPoolExecutor defaultExecutor;
+    private volatile PlayerCountStore store;
+    // Server slot of the bound store -> subscriptions whose value depends on it
+    private volatile Subscription[][] affected = new Subscription[0][];
+    
+    CountNotifier(AbstractOnlinePlayersPlugin plugin, String threadName) {
+        this.plugin = plugin;
+        this.defaultExecutor = new ThreadPoolExecutor(0, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    Executor getDefaultExecutor() {
+        return defaultExecutor;
+    }
+    
+    /**
+     * Follow a newly installed store, and let every listener catch up with counts it changed
+     */
+    void bind(PlayerCountStore next) {
+        next.setChangeListener(this::onChange);
+        synchronized (this) {
+            store = next;
+            rebuild();
+        }
+        for (Subscription subscription : subscriptions) {
+            subscription.schedule();
+        }
+    }
+    
+    CountSubscription subscribe(String name, Executor executor, CountListener listener) {
+        Subscription subscription = new Subscription(name, executor, listener);
+        subscription.baseline(store);
+        subscriptions.add(subscription);
+        synchronized (this) {
+            rebuild();
+        }
+        // Catches a change made between the baseline and the rebuild
+        subscription.schedule();
+        return subscription;
+    }
+    
+    private void onChange(int slot) {
+        Subscription[][] current = affected;
+        if (slot < current.length) {
+            for (Subscription subscription : current[slot]) {
+                subscription.schedule();
+            }
+        }
+    }
+    
+    private void rebuild() {
+        PlayerCountStore current = store;
+        List<List<Subscription>> bySlot = new ArrayList<>();
+        for (int slot = 0; slot < current.size(); slot++) {
+            bySlot.add(new ArrayList<>());
+        }
+        for (Subscription subscription : subscriptions) {
+            if (subscription.name == null) {
+                bySlot.forEach(list -> list.add(subscription));
+                continue;
+            }
+            int target = current.slotOf(subscription.name);
+            if (target < 0) {
+                continue;
+            }
+            for (int slot = 0; slot < current.size(); slot++) {
+                if (slot == target || current.isAggregateOf(slot, target)) {
+                    bySlot.get(slot).add(subscription);
+                }
+            }
+        }
+        Subscription[][] index = new Subscription[bySlot.size()][];
+        for (int slot = 0; slot < index.length; slot++) {
+            index[slot] = bySlot.get(slot).toArray(new Subscription[0]);
+        }
+        affected = index;
+    }
+    
+    private final class Subscription implements CountSubscription, Runnable {
+        // Null for a subscription to every server
+        final String name;
+        final Executor executor;
+        final CountListener listener;
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        volatile boolean cancelled;
+        // Guarded by this subscription: last count delivered, by server name
+        final Map<String, Integer> delivered = new HashMap<>();
+        
+        Subscription(String name, Executor executor, CountListener listener) {
+            this.name = name;
+            this.executor = executor;
+            this.listener = listener;
+        }
+        
+        synchronized void baseline(PlayerCountStore current) {
+            if (name != null) {
+                delivered.put(name, current.get(name));
+                return;
+            }
+            for (int slot = 0; slot < current.size(); slot++) {
+                delivered.put(current.nameOf(slot), current.get(slot));
+            }
+        }
+        
+        void schedule() {
+            if (!cancelled && scheduled.compareAndSet(false, true)) {
+                executor.execute(this);
+            }
+        }
+        
+        @Override
+        public synchronized void run() {
+            scheduled.set(false);
+            if (cancelled) {
+                return;
+            }
+            PlayerCountStore current = store;
+            if (name != null) {
+                deliver(name, current.get(name));
+                return;
+            }
+            for (int slot = 0; slot < current.size(); slot++) {
+                deliver(current.nameOf(slot), current.get(slot));
+            }
+        }
+        
+        private void deliver(String serverName, int count) {
+            Integer previous = delivered.put(serverName, count);
+            // A server added by a reload starts from its first count without an event
+            if (previous == null || previous == count) {
+                return;
+            }
+            try {
+                listener.onCountChange(new CountChangeEvent(serverName, previous, count));
+            } catch (RuntimeException e) {
+                plugin.getPluginLogger().error("Count listener for " + serverName + " failed", e);
+            }
+        }
+        
+        @Override
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+            synchronized (CountNotifier.this) {
+                rebuild();
+            }
+        }
+    }
+}
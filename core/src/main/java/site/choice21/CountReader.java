@@ -0,0 +1,18 @@
+package site.choice21;
+
+/**
+ * What a template reads to render, either live from a count store or from a view of one
+ */
+interface CountReader {
+    int get(int slot);
+    
+    int get(String serverName);
+    
+    int getMax(int slot);
+    
+    int getLatency(int slot);
+    
+    int getState(int slot);
+    
+    String getStateText(int state);
+}
@@ -0,0 +1,107 @@
+package site.choice21;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Compact binary file of the last known player counts, so placeholders have values right after a restart
+ * Layout: magic, version, entry count, then per server its name (length-prefixed UTF-8),
+ * count and the epoch millis the count was stored. Big-endian throughout.
+ */
+public final class CountSnapshot {
+    private static final int MAGIC = 0x56504353; // "VPCS"
+    private static final short VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 2 + 4;
+    private static final int ENTRY_BYTES = 2 + 4 + 8;
+    
+    private CountSnapshot() {
+    }
+    
+    /**
+     * Write every server that has a count to the snapshot file
+     * The file is written next to the target and moved into place, so readers never see a partial file.
+     * @param file The snapshot file
+     * @param store The store to save
+     * @return The number of servers written
+     * @throws IOException If the file couldn't be written
+     */
+    public static int write(Path file, PlayerCountStore store) throws IOException {
+        byte[][] names = new byte[store.size()][];
+        int size = HEADER_BYTES;
+        int entries = 0;
+        for (int slot = 0; slot < names.length; slot++) {
+            if (store.getUpdated(slot) == 0) {
+                continue;
+            }
+            names[slot] = store.nameOf(slot).getBytes(StandardCharsets.UTF_8);
+            size += ENTRY_BYTES + names[slot].length;
+            entries++;
+        }
+        
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(MAGIC).putShort(VERSION).putInt(entries);
+        for (int slot = 0; slot < names.length; slot++) {
+            if (names[slot] == null) {
+                continue;
+            }
+            buffer.putShort((short) names[slot].length).put(names[slot]);
+            // Restored counts keep their original time so repeated restarts can't make them look fresh
+            buffer.putInt(store.get(slot)).putLong(store.getUpdated(slot));
+        }
+        
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temp, buffer.array());
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return entries;
+    }
+    
+    /**
+     * Restore counts from the snapshot file into slots that don't have a live count yet
+     * Entries for servers no longer configured, or older than the maximum age, are skipped.
+     * @param file The snapshot file
+     * @param store The store to restore into
+     * @param maxAgeMillis The oldest entry to restore
+     * @return The number of servers restored, 0 if there is no snapshot
+     * @throws IOException If the file can't be read or isn't a snapshot
+     */
+    public static int restore(Path file, PlayerCountStore store, long maxAgeMillis) throws IOException {
+        byte[] data;
+        try {
+            data = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return 0;
+        }
+        
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        long oldest = System.currentTimeMillis() - maxAgeMillis;
+        int restored = 0;
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getShort() != VERSION) {
+                throw new IOException("Not a count snapshot: " + file);
+            }
+            int entries = buffer.getInt();
+            for (int i = 0; i < entries; i++) {
+                int length = Short.toUnsignedInt(buffer.getShort());
+                String name = new String(data, buffer.position(), length, StandardCharsets.UTF_8);
+                buffer.position(buffer.position() + length);
+                int count = buffer.getInt();
+                long timestamp = buffer.getLong();
+                
+                int slot = store.slotOf(name);
+                if (slot >= 0 && slot < store.size() && timestamp >= oldest) {
+                    store.restore(slot, count, timestamp);
+                    restored++;
+                }
+            }
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Truncated count snapshot: " + file);
+        }
+        return restored;
+    }
+}
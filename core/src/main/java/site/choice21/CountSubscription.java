@@ -0,0 +1,11 @@
+package site.choice21;
+
+/**
+ * A registered {@link CountListener}
+ */
+public interface CountSubscription {
+    /**
+     * Stop delivering events, an event already being delivered may still finish
+     */
+    void cancel();
+}
@@ -0,0 +1,241 @@
+package site.choice21;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Binary protocol the proxy uses to push player counts to its backends over plugin messaging
+ * A full message names every server the proxy counts. Later delta messages carry only changed
+ * counts by position, tagged with the layout they refer to, so a backend that missed the full
+ * state or holds an older layout can tell and ask for a resync.
+ */
+public final class CountSync {
+    /** Plugin messaging channel shared by the proxy and its backends */
+    public static final String CHANNEL = "velocityplaceholders:counts";
+    
+    static final byte FULL = 0;
+    static final byte DELTA = 1;
+    static final byte RESYNC = 2;
+    
+    private CountSync() {
+    }
+    
+    /**
+     * @return A message a backend sends to ask the proxy for the full state
+     */
+    public static byte[] resyncRequest() {
+        return new byte[] { RESYNC };
+    }
+    
+    public static boolean isResyncRequest(byte[] message) {
+        return message.length == 1 && message[0] == RESYNC;
+    }
+    
+    /**
+     * Proxy side: remembers the counts last broadcast and encodes what changed since
+     */
+    public static final class Sender {
+        private PlayerCountStore store;
+        private int layoutId;
+        private String[] names = new String[0];
+        private int[] sent = new int[0];
+        
+        /**
+         * Compare the store with what was last sent and move the baseline forward
+         * @param current The store holding live counts
+         * @return The changes as a delta message, or null if nothing changed.
+         *         If the store's layout changed, null is returned and every backend needs {@link #full()}
+         */
+        public synchronized byte[] delta(PlayerCountStore current) {
+            if (current != store) {
+                store = current;
+                layoutId = ThreadLocalRandom.current().nextInt();
+                names = new String[current.size()];
+                sent = new int[current.size()];
+                for (int slot = 0; slot < sent.length; slot++) {
+                    names[slot] = current.nameOf(slot);
+                    sent[slot] = Math.max(0, current.get(slot));
+                }
+                return null;
+            }
+            
+            int changed = 0;
+            ByteArrayOutputStream entries = new ByteArrayOutputStream();
+            for (int slot = 0; slot < sent.length; slot++) {
+                int count = Math.max(0, current.get(slot));
+                if (count != sent[slot]) {
+                    sent[slot] = count;
+                    writeVarInt(entries, slot);
+                    writeVarInt(entries, count);
+                    changed++;
+                }
+            }
+            if (changed == 0) {
+                return null;
+            }
+            ByteArrayOutputStream out = header(DELTA, changed, entries.size());
+            out.writeBytes(entries.toByteArray());
+            return out.toByteArray();
+        }
+        
+        /**
+         * @return The layout the current deltas refer to, a backend that received {@link #full()}
+         *         for a different layout has to receive it again
+         */
+        public synchronized int getLayoutId() {
+            return layoutId;
+        }
+        
+        /**
+         * @return Every count as of the last {@link #delta(PlayerCountStore)}, so a backend
+         *         that receives it is in step with backends following the deltas
+         */
+        public synchronized byte[] full() {
+            ByteArrayOutputStream entries = new ByteArrayOutputStream();
+            for (int slot = 0; slot < names.length; slot++) {
+                byte[] name = names[slot].getBytes(StandardCharsets.UTF_8);
+                writeVarInt(entries, name.length);
+                entries.write(name, 0, name.length);
+                writeVarInt(entries, sent[slot]);
+            }
+            ByteArrayOutputStream out = header(FULL, names.length, entries.size());
+            out.writeBytes(entries.toByteArray());
+            return out.toByteArray();
+        }
+        
+        private ByteArrayOutputStream header(byte type, int entryCount, int bodySize) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(1 + 4 + 5 + bodySize);
+            out.write(type);
+            out.write(layoutId >>> 24);
+            out.write(layoutId >>> 16);
+            out.write(layoutId >>> 8);
+            out.write(layoutId);
+            writeVarInt(out, entryCount);
+            return out;
+        }
+    }
+    
+    /**
+     * Backend side: applies pushed counts to the local store
+     * Proxy server names are matched against the ids of local servers that aren't pinged or local.
+     */
+    public static final class Receiver {
+        private int layoutId;
+        private String[] proxyNames;
+        private PlayerCountStore mappedStore;
+        // Proxy position -> local slots showing that count
+        private int[][] localSlots;
+        
+        /**
+         * Apply a message from the proxy
+         * @param message The plugin message payload
+         * @param store The local count store
+         * @return true if the message couldn't be applied and the proxy should be asked for the full state
+         */
+        public synchronized boolean apply(byte[] message, PlayerCountStore store) {
+            ByteBuffer buffer = ByteBuffer.wrap(message);
+            try {
+                byte type = buffer.get();
+                int id = buffer.getInt();
+                int entries = readVarInt(buffer);
+                if (type == FULL) {
+                    String[] names = new String[entries];
+                    int[] counts = new int[entries];
+                    for (int i = 0; i < entries; i++) {
+                        int length = readVarInt(buffer);
+                        names[i] = new String(message, buffer.position(), length, StandardCharsets.UTF_8);
+                        buffer.position(buffer.position() + length);
+                        counts[i] = readVarInt(buffer);
+                    }
+                    layoutId = id;
+                    proxyNames = names;
+                    mappedStore = null;
+                    int[][] slots = map(store);
+                    for (int i = 0; i < entries; i++) {
+                        for (int slot : slots[i]) {
+                            store.set(slot, counts[i]);
+                        }
+                    }
+                    return false;
+                }
+                if (type != DELTA || proxyNames == null || id != layoutId) {
+                    return true;
+                }
+                int[][] slots = map(store);
+                for (int i = 0; i < entries; i++) {
+                    int position = readVarInt(buffer);
+                    int count = readVarInt(buffer);
+                    if (position >= slots.length) {
+                        return true;
+                    }
+                    for (int slot : slots[position]) {
+                        store.set(slot, count);
+                    }
+                }
+                return false;
+            } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+                return true;
+            }
+        }
+        
+        private int[][] map(PlayerCountStore store) {
+            if (store == mappedStore) {
+                return localSlots;
+            }
+            Map<String, List<Integer>> byId = new HashMap<>();
+            for (ServerSettings settings : store.getConfig().getServerSettings()) {
+                if (isPushed(settings)) {
+                    byId.computeIfAbsent(settings.getId().toLowerCase(Locale.ROOT), key -> new ArrayList<>())
+                            .add(store.slotOf(settings.getName()));
+                }
+            }
+            int[][] slots = new int[proxyNames.length][];
+            for (int i = 0; i < proxyNames.length; i++) {
+                List<Integer> matches = byId.getOrDefault(proxyNames[i].toLowerCase(Locale.ROOT), List.of());
+                slots[i] = matches.stream().mapToInt(Integer::intValue).toArray();
+            }
+            mappedStore = store;
+            localSlots = slots;
+            return slots;
+        }
+    }
+    
+    /**
+     * @param settings A server configured on the backend
+     * @return true if the server's count comes from the proxy when proxy_push is on
+     */
+    public static boolean isPushed(ServerSettings settings) {
+        return settings.getSource() == ServerSettings.Source.AUTO && !settings.isCurrentServer();
+    }
+    
+    static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+    
+    static int readVarInt(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                if (value < 0) {
+                    throw new IllegalArgumentException("Negative VarInt");
+                }
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("VarInt too long");
+    }
+}
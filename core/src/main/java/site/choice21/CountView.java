@@ -0,0 +1,92 @@
+package site.choice21;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Every count, limit, latency and status of a count store as of one moment, immutable
+ * Groups and the total are added up from the server values in the view, so a total always equals
+ * the sum of its parts. The store hands out the same view until something in it changes, so taking
+ * one per scoreboard update costs a couple of volatile reads while counts are steady.
+ */
+public final class CountView implements CountReader {
+    private static final AtomicLong VERSIONS = new AtomicLong();
+    
+    final PlayerCountStore store;
+    final CountHistory history;
+    // The store's change counter and the history's sample counter this view was read at
+    final int storeVersion;
+    final int historyRevision;
+    private final long version;
+    private final int[] counts;
+    private final int[] maxPlayers;
+    private final int[] latencies;
+    private final int[] states;
+    
+    CountView(PlayerCountStore store, CountHistory history, int storeVersion, int historyRevision,
+              int[] counts, int[] maxPlayers, int[] latencies, int[] states) {
+        this.store = store;
+        this.history = history;
+        this.storeVersion = storeVersion;
+        this.historyRevision = historyRevision;
+        this.version = VERSIONS.incrementAndGet();
+        this.counts = counts;
+        this.maxPlayers = maxPlayers;
+        this.latencies = latencies;
+        this.states = states;
+    }
+    
+    /**
+     * @return A number unique to this view that grows with every new one, equal versions mean equal values
+     */
+    public long getVersion() {
+        return version;
+    }
+    
+    /**
+     * @param slot A slot returned by {@link #slotOf(String)}
+     * @return The player count in the slot
+     */
+    @Override
+    public int get(int slot) {
+        return counts[slot];
+    }
+    
+    /**
+     * Names outside the configuration aren't part of the view and are read live
+     * @param serverName A server name, alias, "group_<name>" or "total"
+     * @return The player count, or 0 if not found
+     */
+    @Override
+    public int get(String serverName) {
+        int slot = store.slotOf(serverName);
+        return slot >= 0 ? counts[slot] : store.get(serverName);
+    }
+    
+    @Override
+    public int getMax(int slot) {
+        return maxPlayers[slot];
+    }
+    
+    @Override
+    public int getLatency(int slot) {
+        return slot < latencies.length ? latencies[slot] : 0;
+    }
+    
+    @Override
+    public int getState(int slot) {
+        return slot < states.length ? states[slot] : PlayerCountStore.STATE_UNKNOWN;
+    }
+    
+    @Override
+    public String getStateText(int state) {
+        return store.getStateText(state);
+    }
+    
+    /**
+     * @param serverName A server name, alias, "group_<name>" or "total"
+     * @return The slot, or -1 if the name isn't configured
+     */
+    public int slotOf(String serverName) {
+        return store.slotOf(serverName);
+    }
+}
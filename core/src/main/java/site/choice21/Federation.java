@@ -0,0 +1,436 @@
+package site.choice21;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Shares the player counts each proxy sees with its peer proxies over UDP, so counts add up across a network
+ * Once per interval every proxy sends its own counts to each configured peer. When its set of backends
+ * changes, or a peer asks, it sends the full set. Otherwise it sends only the counts that changed, by
+ * position and numbered in sequence, so a peer that misses a message notices the gap and asks for the
+ * full set again. A message with no changes still shows the proxy is alive. A peer that stays silent
+ * for longer than the expiry is dropped along with its counts. Datagrams from addresses that aren't
+ * configured peers are ignored.
+ */
+public final class Federation implements AutoCloseable {
+    static final byte VERSION = 1;
+    static final byte FULL = 0;
+    static final byte DELTA = 1;
+    static final byte RESYNC = 2;
+    // Send the full set this often even without a request, in case a resync request got lost
+    private static final int FULL_EVERY = 30;
+    private static final int MAX_DATAGRAM = 65507;
+    
+    // Random per start, so peers can tell a restarted proxy from the one they knew and ignore their own messages
+    private final long nodeId = new SecureRandom().nextLong();
+    private final Selector selector;
+    private final DatagramChannel channel;
+    private final Set<InetSocketAddress> peerAddresses;
+    private final long intervalNanos;
+    private final long expiryNanos;
+    private final Supplier<Map<String, Integer>> localCounts;
+    private final IntSupplier localPlayers;
+    private final Consumer<Collection<String>> onChange;
+    private final PluginLogger logger;
+    private final Thread thread;
+    private volatile boolean running = true;
+    
+    // Only touched by the federation thread
+    private final ByteBuffer receiveBuffer = ByteBuffer.allocate(MAX_DATAGRAM);
+    private final Map<InetSocketAddress, Peer> peers = new HashMap<>();
+    private final Set<InetSocketAddress> failing = new HashSet<>();
+    private int layoutId;
+    private int sequence;
+    private String[] names = new String[0];
+    private int[] sent = new int[0];
+    private int sentPlayers;
+    private long ticks;
+    
+    // Backend name -> players on all live peers, replaced whenever it changes
+    private volatile Map<String, Integer> peerCounts = Map.of();
+    private volatile int peerPlayers;
+    
+    /**
+     * Start sending and receiving
+     * @param bind Local address to listen on, peers send to it
+     * @param peers Addresses of the other proxies
+     * @param intervalMillis Milliseconds between messages to each peer
+     * @param expiryMillis Milliseconds of silence after which a peer's counts are dropped
+     * @param localCounts Supplies this proxy's count per backend name (lower case), called once per interval
+     * @param localPlayers Supplies the number of players on this proxy
+     * @param onChange Called on the federation thread with the backends whose peer count changed
+     * @param logger Reports failures
+     * @param threadName Name for the federation thread
+     * @throws IOException If the local address can't be bound
+     */
+    public Federation(InetSocketAddress bind, List<InetSocketAddress> peers, long intervalMillis, long expiryMillis,
+                      Supplier<Map<String, Integer>> localCounts, IntSupplier localPlayers,
+                      Consumer<Collection<String>> onChange, PluginLogger logger, String threadName) throws IOException {
+        this.peerAddresses = Set.copyOf(peers);
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(50, intervalMillis));
+        this.expiryNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(intervalMillis * 2, expiryMillis));
+        this.localCounts = localCounts;
+        this.localPlayers = localPlayers;
+        this.onChange = onChange;
+        this.logger = logger;
+        this.selector = Selector.open();
+        try {
+            this.channel = DatagramChannel.open();
+            channel.bind(bind);
+            channel.configureBlocking(false);
+            channel.register(selector, SelectionKey.OP_READ);
+        } catch (IOException e) {
+            selector.close();
+            throw e;
+        }
+        this.thread = new Thread(this::run, threadName);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+    
+    /**
+     * @param backend Backend name in lower case
+     * @return Players the live peers count on that backend
+     */
+    public int getPeerCount(String backend) {
+        return peerCounts.getOrDefault(backend, 0);
+    }
+    
+    /**
+     * @return Players connected to all live peers
+     */
+    public int getPeerPlayers() {
+        return peerPlayers;
+    }
+    
+    private void run() {
+        long nextTick = System.nanoTime();
+        while (running) {
+            try {
+                long wait = nextTick - System.nanoTime();
+                if (wait > 0) {
+                    selector.select(Math.max(1, TimeUnit.NANOSECONDS.toMillis(wait)));
+                    selector.selectedKeys().clear();
+                }
+                receive();
+                long now = System.nanoTime();
+                if (now - nextTick >= 0) {
+                    nextTick = now + intervalNanos;
+                    tick(now);
+                }
+            } catch (ClosedSelectorException e) {
+                return;
+            } catch (IOException | RuntimeException e) {
+                if (running) {
+                    logger.error("Count federation failed", e);
+                }
+            }
+        }
+    }
+    
+    private void receive() throws IOException {
+        while (true) {
+            receiveBuffer.clear();
+            SocketAddress source = channel.receive(receiveBuffer);
+            if (source == null) {
+                return;
+            }
+            if (!peerAddresses.contains(source)) {
+                continue;
+            }
+            receiveBuffer.flip();
+            try {
+                handle((InetSocketAddress) source, receiveBuffer);
+            } catch (BufferUnderflowException | IllegalArgumentException e) {
+                // Malformed or from a newer version, the next full set will do
+            }
+        }
+    }
+    
+    private void handle(InetSocketAddress source, ByteBuffer buffer) {
+        if (buffer.get() != VERSION) {
+            return;
+        }
+        byte type = buffer.get();
+        long node = buffer.getLong();
+        if (node == nodeId) {
+            // Peer lists are often shared, so a proxy may list itself
+            return;
+        }
+        if (type == RESYNC) {
+            send(full(), source);
+            return;
+        }
+        int layout = buffer.getInt();
+        int messageSequence = buffer.getInt();
+        int players = CountSync.readVarInt(buffer);
+        int entries = CountSync.readVarInt(buffer);
+        
+        Peer peer = peers.get(source);
+        boolean changed = false;
+        if (peer == null || peer.nodeId != node) {
+            changed = peer != null;
+            peer = new Peer(node);
+            peers.put(source, peer);
+        }
+        peer.lastSeen = System.nanoTime();
+        
+        if (type == FULL) {
+            String[] peerNames = new String[entries];
+            int[] counts = new int[entries];
+            for (int i = 0; i < entries; i++) {
+                int length = CountSync.readVarInt(buffer);
+                if (length > buffer.remaining()) {
+                    throw new IllegalArgumentException("Name too long");
+                }
+                peerNames[i] = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8).toLowerCase(Locale.ROOT);
+                buffer.position(buffer.position() + length);
+                counts[i] = CountSync.readVarInt(buffer);
+            }
+            peer.layoutId = layout;
+            peer.sequence = messageSequence;
+            peer.names = peerNames;
+            peer.counts = counts;
+            peer.players = players;
+            publish();
+            return;
+        }
+        if (type != DELTA) {
+            return;
+        }
+        if (peer.names == null || layout != peer.layoutId || messageSequence != peer.sequence + 1) {
+            send(resyncRequest(), source);
+            if (changed) {
+                publish();
+            }
+            return;
+        }
+        int[] positions = new int[entries];
+        int[] counts = new int[entries];
+        for (int i = 0; i < entries; i++) {
+            positions[i] = CountSync.readVarInt(buffer);
+            counts[i] = CountSync.readVarInt(buffer);
+            if (positions[i] >= peer.counts.length) {
+                throw new IllegalArgumentException("Position out of range");
+            }
+        }
+        for (int i = 0; i < entries; i++) {
+            peer.counts[positions[i]] = counts[i];
+        }
+        peer.sequence = messageSequence;
+        if (changed || entries > 0 || players != peer.players) {
+            peer.players = players;
+            publish();
+        }
+    }
+    
+    /**
+     * Drop silent peers and send this proxy's counts to every peer
+     */
+    private void tick(long now) {
+        boolean expired = false;
+        for (Iterator<Peer> it = peers.values().iterator(); it.hasNext(); ) {
+            if (now - it.next().lastSeen > expiryNanos) {
+                it.remove();
+                expired = true;
+            }
+        }
+        if (expired) {
+            publish();
+        }
+        
+        Map<String, Integer> current = localCounts.get();
+        int players = Math.max(0, localPlayers.getAsInt());
+        byte[] message;
+        if (!sameBackends(current)) {
+            layoutId = new SecureRandom().nextInt();
+            names = current.keySet().toArray(new String[0]);
+            sent = new int[names.length];
+            for (int i = 0; i < names.length; i++) {
+                sent[i] = Math.max(0, current.get(names[i]));
+            }
+            sentPlayers = players;
+            sequence++;
+            message = full();
+        } else if (++ticks % FULL_EVERY == 0) {
+            for (int i = 0; i < names.length; i++) {
+                sent[i] = Math.max(0, current.get(names[i]));
+            }
+            sentPlayers = players;
+            sequence++;
+            message = full();
+        } else {
+            message = delta(current, players);
+        }
+        for (InetSocketAddress peer : peerAddresses) {
+            send(message, peer);
+        }
+    }
+    
+    private boolean sameBackends(Map<String, Integer> current) {
+        if (current.size() != names.length) {
+            return false;
+        }
+        for (String name : names) {
+            if (!current.containsKey(name)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private byte[] delta(Map<String, Integer> current, int players) {
+        int changed = 0;
+        ByteArrayOutputStream entries = new ByteArrayOutputStream();
+        for (int i = 0; i < names.length; i++) {
+            int count = Math.max(0, current.get(names[i]));
+            if (count != sent[i]) {
+                sent[i] = count;
+                CountSync.writeVarInt(entries, i);
+                CountSync.writeVarInt(entries, count);
+                changed++;
+            }
+        }
+        sentPlayers = players;
+        sequence++;
+        ByteArrayOutputStream out = header(DELTA, changed, entries.size());
+        out.writeBytes(entries.toByteArray());
+        return out.toByteArray();
+    }
+    
+    /**
+     * @return Every count as of the last message sent, numbered like that message
+     */
+    private byte[] full() {
+        ByteArrayOutputStream entries = new ByteArrayOutputStream();
+        for (int i = 0; i < names.length; i++) {
+            byte[] name = names[i].getBytes(StandardCharsets.UTF_8);
+            CountSync.writeVarInt(entries, name.length);
+            entries.write(name, 0, name.length);
+            CountSync.writeVarInt(entries, sent[i]);
+        }
+        ByteArrayOutputStream out = header(FULL, names.length, entries.size());
+        out.writeBytes(entries.toByteArray());
+        return out.toByteArray();
+    }
+    
+    private ByteArrayOutputStream header(byte type, int entryCount, int bodySize) {
+        ByteBuffer header = ByteBuffer.allocate(18);
+        header.put(VERSION).put(type).putLong(nodeId).putInt(layoutId).putInt(sequence);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(header.capacity() + 10 + bodySize);
+        out.write(header.array(), 0, header.capacity());
+        CountSync.writeVarInt(out, sentPlayers);
+        CountSync.writeVarInt(out, entryCount);
+        return out;
+    }
+    
+    private byte[] resyncRequest() {
+        return ByteBuffer.allocate(10).put(VERSION).put(RESYNC).putLong(nodeId).array();
+    }
+    
+    private void send(byte[] message, InetSocketAddress peer) {
+        try {
+            // A full socket buffer drops the datagram, the same as a lost one
+            channel.send(ByteBuffer.wrap(message), peer);
+            if (failing.remove(peer)) {
+                logger.info("Federation peer " + peer + " is reachable again");
+            }
+        } catch (IOException e) {
+            if (failing.add(peer)) {
+                logger.warn("Failed to send counts to federation peer " + peer + ": " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Add up the counts of every live peer, and report the backends whose total changed
+     */
+    private void publish() {
+        Map<String, Integer> totals = new HashMap<>();
+        int players = 0;
+        for (Peer peer : peers.values()) {
+            players += peer.players;
+            if (peer.names == null) {
+                continue;
+            }
+            for (int i = 0; i < peer.names.length; i++) {
+                totals.merge(peer.names[i], peer.counts[i], Integer::sum);
+            }
+        }
+        Map<String, Integer> previous = peerCounts;
+        peerCounts = totals;
+        peerPlayers = players;
+        
+        Set<String> changed = new HashSet<>();
+        for (Map.Entry<String, Integer> entry : totals.entrySet()) {
+            if (!entry.getValue().equals(previous.get(entry.getKey()))) {
+                changed.add(entry.getKey());
+            }
+        }
+        for (String backend : previous.keySet()) {
+            if (!totals.containsKey(backend)) {
+                changed.add(backend);
+            }
+        }
+        if (!changed.isEmpty()) {
+            onChange.accept(changed);
+        }
+    }
+    
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            channel.close();
+            selector.close();
+        } catch (IOException e) {
+            // Ignore
+        }
+    }
+    
+    /**
+     * What one peer proxy last told us
+     */
+    private static final class Peer {
+        final long nodeId;
+        long lastSeen;
+        int layoutId;
+        int sequence;
+        // Null until the first full set arrives
+        String[] names;
+        int[] counts;
+        int players;
+        
+        Peer(long nodeId) {
+            this.nodeId = nodeId;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package site.choice21;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
+
+/**
+ * Minimal HTTP server that answers GET /metrics with Prometheus text, for scraping
+ */
+public final class MetricsEndpoint implements AutoCloseable {
+    private final HttpServer server;
+    
+    public MetricsEndpoint(String host, int port, Supplier<String> metrics) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        server.createContext("/metrics", exchange -> {
+            try (exchange) {
+                if (!exchange.getRequestMethod().equals("GET")) {
+                    exchange.sendResponseHeaders(405, -1);
+                    return;
+                }
+                byte[] body = metrics.get().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        });
+        // Requests are rare and cheap, so the server's own dispatcher thread handles them
+        server.setExecutor(null);
+        server.start();
+    }
+    
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,80 @@
+package site.choice21;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Base interface for the plugin that works on both Velocity and Paper
+ */
+public interface OnlinePlayersPlugin {
+    /**
+     * Get the player count for a specific server
+     * @param serverName The server name (e.g., "modernprac")
+     * @return The player count, or 0 if not found
+     */
+    int getPlayerCount(String serverName);
+    
+    /**
+     * Listen for changes to one count, delivered on the plugin's event thread
+     * @param name A configured server name or alias, "group_<name>" or "total"
+     * @param listener Called with the old and new count whenever it changes
+     * @return The subscription, cancel it to stop listening
+     */
+    CountSubscription subscribe(String name, CountListener listener);
+    
+    /**
+     * Listen for changes to one count
+     * @param name A configured server name or alias, "group_<name>" or "total"
+     * @param executor Runs the listener, e.g. the server's main thread scheduler
+     * @param listener Called with the old and new count whenever it changes
+     * @return The subscription, cancel it to stop listening
+     */
+    CountSubscription subscribe(String name, Executor executor, CountListener listener);
+    
+    /**
+     * Listen for changes to every configured server's count, delivered on the plugin's event thread
+     * @param listener Called once per changed server
+     * @return The subscription, cancel it to stop listening
+     */
+    CountSubscription subscribeAll(CountListener listener);
+    
+    /**
+     * Listen for changes to every configured server's count
+     * @param executor Runs the listener
+     * @param listener Called once per changed server
+     * @return The subscription, cancel it to stop listening
+     */
+    CountSubscription subscribeAll(Executor executor, CountListener listener);
+    
+    /**
+     * Get the logger instance
+     */
+    Object getLogger();
+    
+    /**
+     * Get the data directory
+     */
+    Path getDataDirectory();
+    
+    /**
+     * Replace all placeholders in a string
+     * @param text The text containing placeholders like %online_modernprac%
+     * @return The text with placeholders replaced
+     */
+    String replacePlaceholders(String text);
+    
+    /**
+     * Get every count as of one moment, for rendering several templates that must agree
+     * @return The current view, the same instance until a count changes
+     */
+    CountView getCountView();
+    
+    /**
+     * Compile lines that are always rendered together, such as a scoreboard, for use with {@link #getCountView()}
+     * @param texts The texts containing placeholders
+     * @return The compiled batch
+     */
+    PlaceholderBatch compileBatch(List<String> texts);
+}
+
@@ -0,0 +1,165 @@
+package site.choice21;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs pings for both platforms with a cap on how many are in flight at once
+ * Requests for a target that is still being pinged join that ping instead of starting another, so a
+ * slow server never has more than one ping outstanding. Each ping gets a deadline when it is requested,
+ * and its result fails with a TimeoutException if it hasn't finished by then, including time spent
+ * waiting for a free slot. The target stays busy until the ping itself ends, and that is also when its
+ * slot goes to the next waiting request.
+ * @param <T> What a ping produces
+ */
+public final class PingCoordinator<T> {
+    private final Map<String, Flight<T>> flights = new ConcurrentHashMap<>();
+    // Guarded by this
+    private final ArrayDeque<Flight<T>> waiting = new ArrayDeque<>();
+    private int running;
+    private int maxConcurrent;
+    
+    /**
+     * @param maxConcurrent Most pings in flight at once
+     */
+    public PingCoordinator(int maxConcurrent) {
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+    }
+    
+    /**
+     * Ping a target, or join the ping already running for it
+     * @param key Identifies the target, requests with the same key share one ping
+     * @param timeoutMillis Time from now after which the result fails with a TimeoutException
+     * @param ping Starts the ping, called at most once and only when a slot is free
+     * @return A future completed with the ping's result
+     */
+    public CompletableFuture<T> submit(String key, long timeoutMillis, Supplier<CompletableFuture<T>> ping) {
+        Flight<T> created = new Flight<>(key, ping);
+        Flight<T> flight = flights.putIfAbsent(key, created);
+        if (flight != null) {
+            return flight.result.copy();
+        }
+        
+        created.result.orTimeout(Math.max(1, timeoutMillis), TimeUnit.MILLISECONDS);
+        boolean startNow;
+        synchronized (this) {
+            startNow = running < maxConcurrent;
+            if (startNow) {
+                running++;
+            } else {
+                waiting.add(created);
+            }
+        }
+        if (startNow) {
+            start(created);
+        } else {
+            // A request that times out while waiting frees its target right away
+            created.result.whenComplete((value, error) -> {
+                boolean removed;
+                synchronized (this) {
+                    removed = waiting.remove(created);
+                }
+                if (removed) {
+                    flights.remove(key, created);
+                }
+            });
+        }
+        return created.result.copy();
+    }
+    
+    /**
+     * Change the cap, starting waiting requests right away if it was raised
+     * @param maxConcurrent Most pings in flight at once
+     */
+    public void setMaxConcurrent(int maxConcurrent) {
+        while (true) {
+            Flight<T> next;
+            synchronized (this) {
+                this.maxConcurrent = Math.max(1, maxConcurrent);
+                if (running >= this.maxConcurrent || (next = nextWaiting()) == null) {
+                    return;
+                }
+                running++;
+            }
+            start(next);
+        }
+    }
+    
+    /**
+     * @return Pings currently in flight
+     */
+    public synchronized int getRunning() {
+        return running;
+    }
+    
+    /**
+     * @return Requests waiting for a free slot
+     */
+    public synchronized int getWaiting() {
+        return waiting.size();
+    }
+    
+    private void start(Flight<T> flight) {
+        CompletableFuture<T> pending;
+        try {
+            pending = flight.ping.get();
+        } catch (RuntimeException e) {
+            pending = CompletableFuture.failedFuture(e);
+        }
+        pending.whenComplete((value, error) -> {
+            if (error == null) {
+                flight.result.complete(value);
+            } else {
+                flight.result.completeExceptionally(error);
+            }
+            finish(flight);
+        });
+    }
+    
+    /**
+     * Free the target, and hand the slot to the next waiting request
+     */
+    private void finish(Flight<T> flight) {
+        flights.remove(flight.key, flight);
+        Flight<T> next;
+        synchronized (this) {
+            next = running <= maxConcurrent ? nextWaiting() : null;
+            if (next == null) {
+                running--;
+                return;
+            }
+        }
+        start(next);
+    }
+    
+    /**
+     * Guarded by this
+     * @return The oldest waiting request that hasn't timed out, or null
+     */
+    private Flight<T> nextWaiting() {
+        Flight<T> next;
+        while ((next = waiting.poll()) != null) {
+            if (!next.result.isDone()) {
+                return next;
+            }
+            flights.remove(next.key, next);
+        }
+        return null;
+    }
+    
+    private static final class Flight<T> {
+        final String key;
+        final Supplier<CompletableFuture<T>> ping;
+        // Completed by the ping or by the deadline, whichever comes first
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        
+        Flight(String key, Supplier<CompletableFuture<T>> ping) {
+            this.key = key;
+            this.ping = ping;
+        }
+    }
+}
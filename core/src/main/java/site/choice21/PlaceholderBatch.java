@@ -0,0 +1,69 @@
+package site.choice21;
+
+import java.util.List;
+
+/**
+ * A fixed list of templates rendered together against one count view, such as the lines of a scoreboard
+ * Every line of one render shows the same moment, so a total never disagrees with the servers listed
+ * above it. A line rendered again with the same view comes back as the same String instance, and one
+ * whose text didn't change across views does too, so callers can skip resending it by reference.
+ */
+public final class PlaceholderBatch {
+    private final PlaceholderTemplate[] templates;
+    
+    PlaceholderBatch(PlaceholderTemplate[] templates) {
+        this.templates = templates;
+    }
+    
+    /**
+     * Compile a list of strings into a batch
+     * @param texts The texts containing placeholders
+     * @return The batch, rendering the texts in the same order
+     */
+    public static PlaceholderBatch compile(List<String> texts) {
+        PlaceholderTemplate[] templates = new PlaceholderTemplate[texts.size()];
+        for (int i = 0; i < templates.length; i++) {
+            templates[i] = PlaceholderTemplate.compile(texts.get(i));
+        }
+        return new PlaceholderBatch(templates);
+    }
+    
+    /**
+     * @return The number of templates in the batch
+     */
+    public int size() {
+        return templates.length;
+    }
+    
+    /**
+     * @param index The template's position in the batch
+     * @return The template
+     */
+    public PlaceholderTemplate get(int index) {
+        return templates[index];
+    }
+    
+    /**
+     * Render every template against the same view
+     * @param view A view taken with {@link PlayerCountStore#view(CountHistory)}
+     * @param out An array to fill and return, or null; a new one is allocated if it is too short
+     * @return The rendered texts, in the batch's order
+     */
+    public String[] render(CountView view, String[] out) {
+        String[] result = out != null && out.length >= templates.length ? out : new String[templates.length];
+        for (int i = 0; i < templates.length; i++) {
+            result[i] = templates[i].render(view);
+        }
+        return result;
+    }
+    
+    /**
+     * Render one template against a view straight into a caller's builder
+     * @param view A view taken with {@link PlayerCountStore#view(CountHistory)}
+     * @param index The template's position in the batch
+     * @param out The builder to append to
+     */
+    public void appendTo(CountView view, int index, StringBuilder out) {
+        templates[index].appendTo(view, out);
+    }
+}
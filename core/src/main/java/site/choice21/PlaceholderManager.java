@@ -0,0 +1,145 @@
+package site.choice21;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches compiled templates, which in turn keep their last output until a count they show changes
+ * When full, the least recently used tenth of the cache is evicted in one pass. A string that isn't
+ * cached yet is only admitted once it has been seen twice, so one-off strings can't push out the
+ * scoreboard lines that are rendered for every player.
+ */
+public class PlaceholderManager {
+    // Scoreboards and tab lists reuse a handful of strings, so this is plenty while still bounding memory
+    private static final int MAX_CACHED_TEMPLATES = 1024;
+    private static final int EVICTION_BATCH = MAX_CACHED_TEMPLATES / 10;
+    private static final int DOORKEEPER_MASK = MAX_CACHED_TEMPLATES * 4 - 1;
+    private final AbstractOnlinePlayersPlugin plugin;
+    private final Map<String, CachedTemplate> templates = new ConcurrentHashMap<>();
+    // Advances on every miss, so hits only need to copy it into the entry
+    private final AtomicLong clock = new AtomicLong();
+    // Hashes of strings seen once while the cache was full. Races only lose a sighting, so plain writes are fine
+    private final int[] doorkeeper = new int[DOORKEEPER_MASK + 1];
+    
+    public PlaceholderManager(AbstractOnlinePlayersPlugin plugin) {
+        this.plugin = plugin;
+    }
+    
+    /**
+     * Replace all %online_<server>% placeholders in a string
+     * @param text The text containing placeholders
+     * @return The text with placeholders replaced
+     */
+    public String replacePlaceholders(String text) {
+        if (text == null) {
+            return null;
+        }
+        
+        PlaceholderTemplate template = compile(text);
+        PluginMetrics metrics = plugin.getMetrics();
+        if (!metrics.countRender()) {
+            return template.render(plugin.getCountStore(), plugin.getHistory());
+        }
+        long start = System.nanoTime();
+        String result = template.render(plugin.getCountStore(), plugin.getHistory());
+        metrics.recordRenderNanos(System.nanoTime() - start);
+        return result;
+    }
+    
+    /**
+     * Get the compiled template for a string, parsing it only the first time it is seen
+     * @param text The text containing placeholders
+     * @return The compiled template
+     */
+    public PlaceholderTemplate compile(String text) {
+        CachedTemplate cached = templates.get(text);
+        if (cached != null) {
+            long now = clock.get();
+            // Skip the write when nothing was missed since, to keep hits from contending on the entry
+            if (cached.lastUsed != now) {
+                cached.lastUsed = now;
+            }
+            return cached.template;
+        }
+        
+        PlaceholderTemplate template = PlaceholderTemplate.compile(text);
+        long now = clock.incrementAndGet();
+        if (templates.size() >= MAX_CACHED_TEMPLATES) {
+            if (!seenBefore(text)) {
+                return template;
+            }
+            evict();
+        }
+        cached = templates.putIfAbsent(text, new CachedTemplate(template, now));
+        return cached != null ? cached.template : template;
+    }
+    
+    /**
+     * Record a sighting of a string that the full cache didn't take
+     * @return true if it was already seen, in which case it should be admitted
+     */
+    private boolean seenBefore(String text) {
+        int hash = text.hashCode() | 1;
+        int index = (hash ^ (hash >>> 16)) & DOORKEEPER_MASK;
+        if (doorkeeper[index] == hash) {
+            doorkeeper[index] = 0;
+            return true;
+        }
+        doorkeeper[index] = hash;
+        return false;
+    }
+    
+    /**
+     * Drop the least recently used entries, once per batch rather than once per insert
+     */
+    private synchronized void evict() {
+        if (templates.size() < MAX_CACHED_TEMPLATES) {
+            return;
+        }
+        
+        long[] ages = new long[templates.size()];
+        int count = 0;
+        for (CachedTemplate cached : templates.values()) {
+            if (count == ages.length) {
+                break;
+            }
+            ages[count++] = cached.lastUsed;
+        }
+        if (count == 0) {
+            return;
+        }
+        Arrays.sort(ages, 0, count);
+        long cutoff = ages[Math.min(count, EVICTION_BATCH) - 1];
+        templates.values().removeIf(cached -> cached.lastUsed <= cutoff);
+        // Sightings from before the eviction describe a different cache
+        Arrays.fill(doorkeeper, 0);
+    }
+    
+    /**
+     * Check if a string contains any online placeholders
+     * @param text The text to check
+     * @return true if placeholders are found
+     */
+    public boolean containsPlaceholders(String text) {
+        return text != null && compile(text).hasPlaceholders();
+    }
+    
+    /**
+     * Drop all cached templates
+     */
+    public void clearCache() {
+        templates.clear();
+    }
+    
+    private static final class CachedTemplate {
+        final PlaceholderTemplate template;
+        volatile long lastUsed;
+        
+        CachedTemplate(PlaceholderTemplate template, long lastUsed) {
+            this.template = template;
+            this.lastUsed = lastUsed;
+        }
+    }
+}
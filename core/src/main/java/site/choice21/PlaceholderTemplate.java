@@ -0,0 +1,336 @@
+package site.choice21;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A string parsed once into literal segments and %online_<server>%, %max_<server>%,
+ * %ping_<server>% and %status_<server>% slots so it can be rendered repeatedly without regex matching
+ * %online_peak_<server>_1h% style names that aren't servers themselves read from the count history.
+ */
+public final class PlaceholderTemplate {
+    static final String PREFIX = "%online_";
+    // Indexed by kind
+    private static final String[] PREFIXES = { PREFIX, "%max_", "%ping_", "%status_" };
+    private static final byte ONLINE = 0;
+    private static final byte MAX = 1;
+    private static final byte PING = 2;
+    private static final byte STATUS = 3;
+    
+    private final String source;
+    private final String[] literals;
+    private final String[] servers;
+    private final byte[] kinds;
+    private final int literalLength;
+    // Slots resolved against the most recently used count store
+    private volatile Binding binding;
+    // Last output, reused until a revision of one of its slots changes
+    private volatile Rendered rendered;
+    // Last output rendered against a view, reused for as long as callers pass that same view
+    private volatile ViewRendered viewRendered;
+    
+    private PlaceholderTemplate(String source, String[] literals, String[] servers, byte[] kinds) {
+        this.source = source;
+        this.literals = literals;
+        this.servers = servers;
+        this.kinds = kinds;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+    
+    /**
+     * Parse a string into a template
+     * @param text The text containing placeholders
+     * @return The compiled template
+     */
+    public static PlaceholderTemplate compile(String text) {
+        List<String> literals = null;
+        List<String> servers = null;
+        ByteArrayOutputStream kinds = null;
+        int literalStart = 0;
+        int searchFrom = 0;
+        
+        while (true) {
+            int start = text.indexOf('%', searchFrom);
+            if (start == -1) {
+                break;
+            }
+            byte kind = kindAt(text, start);
+            if (kind < 0) {
+                searchFrom = start + 1;
+                continue;
+            }
+            int nameStart = start + PREFIXES[kind].length();
+            int end = text.indexOf('%', nameStart);
+            if (end == -1) {
+                // No closing '%' anywhere after this point, so nothing else can match
+                break;
+            }
+            if (end == nameStart) {
+                // "%online_%" has an empty server name, keep scanning from the next character
+                searchFrom = start + 1;
+                continue;
+            }
+            
+            if (literals == null) {
+                literals = new ArrayList<>();
+                servers = new ArrayList<>();
+                kinds = new ByteArrayOutputStream();
+            }
+            literals.add(text.substring(literalStart, start));
+            servers.add(text.substring(nameStart, end));
+            kinds.write(kind);
+            literalStart = end + 1;
+            searchFrom = end + 1;
+        }
+        
+        if (literals == null) {
+            return new PlaceholderTemplate(text, new String[] { text }, new String[0], new byte[0]);
+        }
+        literals.add(text.substring(literalStart));
+        return new PlaceholderTemplate(text, literals.toArray(new String[0]), servers.toArray(new String[0]), kinds.toByteArray());
+    }
+    
+    private static byte kindAt(String text, int index) {
+        for (byte kind = 0; kind < PREFIXES.length; kind++) {
+            if (text.startsWith(PREFIXES[kind], index)) {
+                return kind;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Render the template by reading counts straight from a count store's slots
+     * While none of the referenced values change, the previous result is returned as the same String instance.
+     * @param store The store to read player counts from
+     * @return The rendered text, or the source string itself if it has no placeholders
+     */
+    public String render(PlayerCountStore store) {
+        return render(store, null);
+    }
+    
+    /**
+     * Render the template, with statistic placeholders read from a count history
+     * @param store The store to read player counts from
+     * @param history The history to read statistics from, or null to show them as 0
+     * @return The rendered text, or the source string itself if it has no placeholders
+     */
+    public String render(PlayerCountStore store, CountHistory history) {
+        if (servers.length == 0) {
+            return source;
+        }
+        
+        Binding bound = bind(store, history);
+        int[] slots = bound.slots;
+        Rendered cached = rendered;
+        if (cached != null && cached.binding == bound && cached.isCurrent(store)) {
+            return cached.text;
+        }
+        
+        // Revisions are read before the values, so a change that races with this render
+        // leaves an older revision behind and the next render redoes it
+        int[] revisions = null;
+        int historyRevision = 0;
+        if (bound.cacheable) {
+            revisions = new int[slots.length];
+            for (int i = 0; i < slots.length; i++) {
+                revisions[i] = slots[i] >= 0 ? store.getRevision(slots[i]) : 0;
+            }
+            if (bound.usesHistory) {
+                historyRevision = history.getRevision();
+            }
+        }
+        
+        // Reserve a few characters per value so the builder never has to grow in practice
+        StringBuilder result = new StringBuilder(literalLength + servers.length * 4);
+        appendValues(store, bound, result);
+        String text = result.toString();
+        if (revisions != null) {
+            rendered = new Rendered(bound, revisions, historyRevision, text);
+        }
+        return text;
+    }
+    
+    /**
+     * Render the template against a view, so that every template rendered with it shows the same moment
+     * Rendering again with the same view returns the same String instance.
+     * @param view A view taken with {@link PlayerCountStore#view(CountHistory)}
+     * @return The rendered text, or the source string itself if it has no placeholders
+     */
+    public String render(CountView view) {
+        if (servers.length == 0) {
+            return source;
+        }
+        
+        ViewRendered cached = viewRendered;
+        if (cached != null && cached.view == view) {
+            return cached.text;
+        }
+        StringBuilder result = new StringBuilder(literalLength + servers.length * 4);
+        appendValues(view, bind(view.store, view.history), result);
+        String text = result.toString();
+        // Keep handing out the previous instance while the text is unchanged, so callers can compare by reference
+        if (cached != null && cached.text.equals(text)) {
+            text = cached.text;
+        }
+        viewRendered = new ViewRendered(view, text);
+        return text;
+    }
+    
+    /**
+     * Render the template against a view straight into a caller's builder
+     * @param view A view taken with {@link PlayerCountStore#view(CountHistory)}
+     * @param out The builder to append to
+     */
+    public void appendTo(CountView view, StringBuilder out) {
+        ViewRendered cached = viewRendered;
+        if (servers.length == 0) {
+            out.append(source);
+        } else if (cached != null && cached.view == view) {
+            out.append(cached.text);
+        } else {
+            appendValues(view, bind(view.store, view.history), out);
+        }
+    }
+    
+    private void appendValues(CountReader counts, Binding bound, StringBuilder out) {
+        int[] slots = bound.slots;
+        for (int i = 0; i < servers.length; i++) {
+            out.append(literals[i]);
+            int slot = slots[i];
+            switch (kinds[i]) {
+                case ONLINE:
+                    if (slot >= 0) {
+                        out.append(counts.get(slot));
+                    } else if (bound.statNames[i] != null) {
+                        out.append(bound.history.get(bound.statNames[i], bound.statIndexes[i]));
+                    } else {
+                        out.append(counts.get(servers[i]));
+                    }
+                    break;
+                case MAX:
+                    out.append(slot >= 0 ? counts.getMax(slot) : 0);
+                    break;
+                case PING:
+                    out.append(slot >= 0 ? counts.getLatency(slot) : 0);
+                    break;
+                default:
+                    out.append(counts.getStateText(slot >= 0 ? counts.getState(slot) : PlayerCountStore.STATE_UNKNOWN));
+                    break;
+            }
+        }
+        out.append(literals[servers.length]);
+    }
+    
+    private Binding bind(PlayerCountStore store, CountHistory history) {
+        Binding current = binding;
+        if (current != null && current.store == store && current.history == history) {
+            return current;
+        }
+        
+        current = new Binding(store, history, servers, kinds);
+        binding = current;
+        return current;
+    }
+    
+    /**
+     * @return true if the template contains at least one placeholder
+     */
+    public boolean hasPlaceholders() {
+        return servers.length > 0;
+    }
+    
+    /**
+     * @return The server names referenced by this template's placeholders, in order of appearance
+     */
+    public List<String> getServers() {
+        return List.of(servers);
+    }
+    
+    /**
+     * @return The original text this template was compiled from
+     */
+    public String getSource() {
+        return source;
+    }
+    
+    private static final class Binding {
+        final PlayerCountStore store;
+        final CountHistory history;
+        final int[] slots;
+        // For statistic placeholders, the slot name and statistic to read from the history
+        final String[] statNames;
+        final int[] statIndexes;
+        // Names outside the configuration have no revisions, so their output can't be reused
+        final boolean cacheable;
+        final boolean usesHistory;
+        
+        Binding(PlayerCountStore store, CountHistory history, String[] servers, byte[] kinds) {
+            this.store = store;
+            this.history = history;
+            this.slots = new int[servers.length];
+            this.statNames = new String[servers.length];
+            this.statIndexes = new int[servers.length];
+            boolean resolved = true;
+            boolean stats = false;
+            for (int i = 0; i < servers.length; i++) {
+                slots[i] = store.slotOf(servers[i]);
+                if (slots[i] < 0 && kinds[i] == ONLINE && history != null) {
+                    CountHistory.Stat stat = CountHistory.parse(servers[i]);
+                    int statSlot = stat != null ? store.slotOf(stat.name) : -1;
+                    if (statSlot >= 0) {
+                        statNames[i] = store.slotName(statSlot);
+                        statIndexes[i] = stat.index;
+                        stats = true;
+                        continue;
+                    }
+                }
+                resolved &= slots[i] >= 0;
+            }
+            this.cacheable = resolved;
+            this.usesHistory = stats;
+        }
+    }
+    
+    private static final class Rendered {
+        final Binding binding;
+        final int[] revisions;
+        final int historyRevision;
+        final String text;
+        
+        Rendered(Binding binding, int[] revisions, int historyRevision, String text) {
+            this.binding = binding;
+            this.revisions = revisions;
+            this.historyRevision = historyRevision;
+            this.text = text;
+        }
+        
+        boolean isCurrent(PlayerCountStore store) {
+            if (binding.usesHistory && binding.history.getRevision() != historyRevision) {
+                return false;
+            }
+            int[] slots = binding.slots;
+            for (int i = 0; i < slots.length; i++) {
+                if (slots[i] >= 0 && store.getRevision(slots[i]) != revisions[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+    
+    private static final class ViewRendered {
+        final CountView view;
+        final String text;
+        
+        ViewRendered(CountView view, String text) {
+            this.view = view;
+            this.text = text;
+        }
+    }
+}
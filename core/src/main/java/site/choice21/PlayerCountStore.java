@@ -0,0 +1,556 @@
+package site.choice21;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntConsumer;
+
+/**
+ * Thread-safe player count storage
+ * Configured server names are resolved once to dense slots backed by an atomic array,
+ * so reads never lock or box. Names outside the configuration fall back to a concurrent map.
+ * Groups and the network total live in slots after the servers and are kept up to date by
+ * adding each server's change as it is stored, so reading a sum costs the same as reading a server.
+ * Writes to server slots are serialized per store, which lets a reload hand counts over to the
+ * replacing store without losing one that lands mid-swap.
+ */
+public final class PlayerCountStore implements CountReader {
+    static final String GROUP_PREFIX = "group_";
+    static final String TOTAL = "total";
+    
+    /** The server hasn't been pinged yet, or its count doesn't come from pings */
+    public static final int STATE_UNKNOWN = 0;
+    public static final int STATE_ONLINE = 1;
+    public static final int STATE_OFFLINE = 2;
+    
+    private final PluginConfig config;
+    private final String[] names;
+    // Server names, aliases, then "group_<name>" and "total", with the slot each one reads
+    private final String[] lookupNames;
+    // The name of every slot, servers then aggregates
+    private final String[] slotNames;
+    // Server slots followed by aggregate slots
+    private final AtomicIntegerArray counts;
+    // For each server slot, the aggregate slots its count is part of
+    private final int[][] aggregatesOf;
+    // Epoch millis each server slot was last stored, 0 if never, negated if restored from a snapshot
+    private final AtomicLongArray updated;
+    // Player limits, summed into aggregate slots like counts
+    private final AtomicIntegerArray maxPlayers;
+    // Status details per server slot, from the last ping
+    private final AtomicIntegerArray latencies;
+    private final AtomicIntegerArray states;
+    private final AtomicReferenceArray<String> versionNames;
+    // Bumped whenever anything a placeholder can show for the slot changes, so rendered text can be reused until then
+    private final AtomicIntegerArray revisions;
+    // Text shown by %status_<server>%, indexed by state
+    private final String[] stateTexts;
+    private final SlotIndex slots;
+    // Last rendered text per slot, replaced only when the count it was built from changes
+    private final CountText[] texts;
+    private final Map<String, AtomicInteger> unconfigured = new ConcurrentHashMap<>();
+    // Bumped after any count, limit, latency or state changes, so views can tell when they are out of date
+    private final AtomicInteger version = new AtomicInteger();
+    // The last view handed out, reused until the version or the history moves on
+    private volatile CountView view;
+    // Told the server slot whenever a count actually changes, null while nobody listens
+    private volatile IntConsumer changeListener;
+    // The store that replaced this one on a reload, writes that still arrive here are passed on to it
+    private volatile PlayerCountStore successor;
+    
+    public PlayerCountStore(Collection<String> serverNames) {
+        this(new PluginConfig(), serverNames, Map.of(), Map.of());
+    }
+    
+    /**
+     * Create the slot layout for a configuration
+     * Each configured server gets a slot, its aliases read the same slot,
+     * and each group plus the total gets an aggregate slot.
+     * @param config The configuration the layout is built from
+     */
+    public PlayerCountStore(PluginConfig config) {
+        this(config, config.getServers().keySet(), config.getAliases(), config.getGroups());
+    }
+    
+    private PlayerCountStore(PluginConfig config, Collection<String> serverNames, Map<String, String> aliases,
+                             Map<String, List<String>> groups) {
+        this.config = config;
+        this.names = serverNames.toArray(new String[0]);
+        int aggregates = groups.size() + 1;
+        this.counts = new AtomicIntegerArray(names.length + aggregates);
+        this.updated = new AtomicLongArray(names.length);
+        this.maxPlayers = new AtomicIntegerArray(names.length + aggregates);
+        this.latencies = new AtomicIntegerArray(names.length);
+        this.states = new AtomicIntegerArray(names.length);
+        this.versionNames = new AtomicReferenceArray<>(names.length);
+        this.revisions = new AtomicIntegerArray(names.length + aggregates);
+        this.stateTexts = new String[] { config.getStatusUnknownText(), config.getStatusOnlineText(), config.getStatusOfflineText() };
+        this.texts = new CountText[names.length + aggregates];
+        
+        SlotIndex serverSlots = new SlotIndex(names);
+        this.lookupNames = Arrays.copyOf(names, names.length + aliases.size() + aggregates);
+        int[] lookupSlots = new int[lookupNames.length];
+        for (int i = 0; i < names.length; i++) {
+            lookupSlots[i] = i;
+        }
+        int next = names.length;
+        for (Map.Entry<String, String> alias : aliases.entrySet()) {
+            lookupNames[next] = alias.getKey();
+            lookupSlots[next] = serverSlots.get(alias.getValue());
+            next++;
+        }
+        
+        List<List<Integer>> memberships = new ArrayList<>();
+        for (int i = 0; i < names.length; i++) {
+            memberships.add(new ArrayList<>());
+        }
+        int aggregateSlot = names.length;
+        for (Map.Entry<String, List<String>> group : groups.entrySet()) {
+            addMembers(aggregateSlot, group.getValue(), serverSlots, memberships);
+            lookupNames[next] = GROUP_PREFIX + group.getKey();
+            lookupSlots[next++] = aggregateSlot++;
+        }
+        addMembers(aggregateSlot, List.of(names), serverSlots, memberships);
+        lookupNames[next] = TOTAL;
+        lookupSlots[next] = aggregateSlot;
+        this.slotNames = Arrays.copyOf(names, names.length + aggregates);
+        System.arraycopy(lookupNames, names.length + aliases.size(), slotNames, names.length, aggregates);
+        
+        this.aggregatesOf = new int[names.length][];
+        for (int i = 0; i < names.length; i++) {
+            aggregatesOf[i] = memberships.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+        // Earlier names win on a clash, so a server called "total" keeps its own placeholder
+        this.slots = new SlotIndex(lookupNames, lookupSlots);
+    }
+    
+    private void addMembers(int aggregateSlot, List<String> members, SlotIndex serverSlots, List<List<Integer>> memberships) {
+        // Names that point at the same server id would otherwise count its players twice
+        Set<String> ids = new HashSet<>();
+        for (String member : members) {
+            int slot = serverSlots.get(member);
+            String id = config.getServers().getOrDefault(member, member);
+            if (slot >= 0 && ids.add(id.toLowerCase(Locale.ROOT))) {
+                memberships.get(slot).add(aggregateSlot);
+            }
+        }
+    }
+    
+    /**
+     * Pass every later write to this store on to the one replacing it
+     * Call before publishing the next store, so writers still holding this one aren't lost,
+     * then carry the existing counts over with {@link #copyCountsFrom(PlayerCountStore)}.
+     * @param next The replacing store
+     */
+    public void handOffTo(PlayerCountStore next) {
+        successor = next;
+    }
+    
+    /**
+     * Carry counts over from the previous layout for servers present in both
+     * Slots already written to this store are skipped, since those writes are newer than anything copied.
+     * @param previous The store being replaced
+     */
+    public void copyCountsFrom(PlayerCountStore previous) {
+        for (int slot = 0; slot < names.length; slot++) {
+            int previousSlot = previous.slotOf(names[slot]);
+            if (previousSlot < 0 || previousSlot >= previous.names.length) {
+                continue;
+            }
+            synchronized (this) {
+                if (updated.get(slot) != 0) {
+                    continue;
+                }
+                // A write to the previous store either lands before this copy or is passed on after it
+                synchronized (previous) {
+                    setCount(slot, previous.get(previousSlot));
+                    updated.set(slot, previous.updated.get(previousSlot));
+                    addToAggregates(maxPlayers, slot, previous.getMax(previousSlot));
+                    setLatency(slot, previous.latencies.get(previousSlot));
+                    setState(slot, previous.states.get(previousSlot));
+                    versionNames.set(slot, previous.versionNames.get(previousSlot));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Resolve a server name to its slot
+     * @param serverName The configured server name
+     * @return The slot, or -1 if the server isn't configured
+     */
+    public int slotOf(String serverName) {
+        return slots.get(serverName);
+    }
+    
+    /**
+     * @param slot A slot returned by {@link #slotOf(String)}
+     * @return The player count stored in the slot
+     */
+    public int get(int slot) {
+        return counts.get(slot);
+    }
+    
+    /**
+     * Store a server's player count and add the change to every group containing it
+     * Aggregate slots are derived and can't be set directly.
+     * @param slot A server slot returned by {@link #slotOf(String)}
+     * @param count The new player count
+     */
+    public void set(int slot, int count) {
+        if (slot >= names.length) {
+            return;
+        }
+        synchronized (this) {
+            store(slot, count);
+        }
+        PlayerCountStore next = successor;
+        if (next != null) {
+            next.set(names[slot], count);
+        }
+    }
+    
+    private void store(int slot, int count) {
+        setCount(slot, count);
+        updated.set(slot, System.currentTimeMillis());
+    }
+    
+    /**
+     * Put back a count saved by an earlier run, unless the slot already has a live count
+     * The count is marked stale until the server is next polled.
+     * @param slot A server slot returned by {@link #slotOf(String)}
+     * @param count The saved player count
+     * @param timestamp Epoch millis the count was originally stored
+     */
+    public synchronized void restore(int slot, int count, long timestamp) {
+        if (slot >= names.length || timestamp <= 0) {
+            return;
+        }
+        if (updated.compareAndSet(slot, 0, -timestamp)) {
+            setCount(slot, count);
+        }
+    }
+    
+    /**
+     * @param slot A server slot returned by {@link #slotOf(String)}
+     * @return Epoch millis the count was last stored, or 0 if it never was
+     */
+    public long getUpdated(int slot) {
+        return slot < names.length ? Math.abs(updated.get(slot)) : 0;
+    }
+    
+    /**
+     * @param slot A server slot returned by {@link #slotOf(String)}
+     * @return true if the count was restored from a snapshot and hasn't been refreshed since
+     */
+    public boolean isStale(int slot) {
+        return slot < names.length && updated.get(slot) < 0;
+    }
+    
+    /**
+     * Store everything a server reported in its status response and mark it online
+     * @param slot A server slot returned by {@link #slotOf(String)}
+     * @param status The server's status
+     */
+    public void setStatus(int slot, ServerStatus status) {
+        if (slot >= names.length) {
+            return;
+        }
+        synchronized (this) {
+            addToAggregates(maxPlayers, slot, status.getMax());
+            setLatency(slot, status.getLatencyMillis());
+            versionNames.set(slot, status.getVersion());
+            setState(slot, STATE_ONLINE);
+            store(slot, status.getOnline());
+        }
+        PlayerCountStore next = successor;
+        if (next != null) {
+            int nextSlot = next.slotOf(names[slot]);
+            if (nextSlot >= 0) {
+                next.setStatus(nextSlot, status);
+            } else {
+                next.set(names[slot], status.getOnline());
+            }
+        }
+    }
+    
+    /**
+     * Mark a server offline, its count drops to 0 and its player limit is kept
+     * @param slot A server slot returned by {@link #slotOf(String)}
+     */
+    public void setOffline(int slot) {
+        if (slot >= names.length) {
+            return;
+        }
+        synchronized (this) {
+            setLatency(slot, 0);
+            setState(slot, STATE_OFFLINE);
+            store(slot, 0);
+        }
+        PlayerCountStore next = successor;
+        if (next != null) {
+            int nextSlot = next.slotOf(names[slot]);
+            if (nextSlot >= 0) {
+                next.setOffline(nextSlot);
+            } else {
+                next.set(names[slot], 0);
+            }
+        }
+    }
+    
+    /**
+     * @param slot A slot returned by {@link #slotOf(String)}
+     * @return The player limit, summed for groups and the total
+     */
+    public int getMax(int slot) {
+        return maxPlayers.get(slot);
+    }
+    
+    /**
+     * @param slot A slot returned by {@link #slotOf(String)}
+     * @return Round-trip time of the last successful ping in milliseconds, 0 for aggregates or if unknown
+     */
+    public int getLatency(int slot) {
+        return slot < names.length ? latencies.get(slot) : 0;
+    }
+    
+    /**
+     * @param slot A slot returned by {@link #slotOf(String)}
+     * @return One of {@link #STATE_UNKNOWN}, {@link #STATE_ONLINE} or {@link #STATE_OFFLINE}
+     */
+    public int getState(int slot) {
+        return slot < names.length ? states.get(slot) : STATE_UNKNOWN;
+    }
+    
+    /**
+     * @param slot A slot returned by {@link #slotOf(String)}
+     * @return The version name from the last successful ping, or null if unknown
+     */
+    public String getVersion(int slot) {
+        return slot < names.length ? versionNames.get(slot) : null;
+    }
+    
+    /**
+     * @param state A state returned by {@link #getState(int)}
+     * @return The configured text for the state
+     */
+    public String getStateText(int state) {
+        return stateTexts[state];
+    }
+    
+    /**
+     * @param slot A slot returned by {@link #slotOf(String)}
+     * @return A number that changes whenever the slot's count, limit, latency or state changes
+     */
+    public int getRevision(int slot) {
+        return revisions.get(slot);
+    }
+    
+    private void setLatency(int slot, int latency) {
+        if (latencies.getAndSet(slot, latency) != latency) {
+            revisions.incrementAndGet(slot);
+            version.incrementAndGet();
+        }
+    }
+    
+    private void setState(int slot, int state) {
+        if (states.getAndSet(slot, state) != state) {
+            revisions.incrementAndGet(slot);
+            version.incrementAndGet();
+        }
+    }
+    
+    private void setCount(int slot, int count) {
+        if (addToAggregates(counts, slot, count) != 0) {
+            IntConsumer listener = changeListener;
+            if (listener != null) {
+                listener.accept(slot);
+            }
+        }
+    }
+    
+    /**
+     * Store a server slot's value and add the change to every aggregate containing it
+     * @return The change
+     */
+    private int addToAggregates(AtomicIntegerArray values, int slot, int value) {
+        int delta = value - values.getAndSet(slot, value);
+        if (delta != 0) {
+            revisions.incrementAndGet(slot);
+            for (int aggregate : aggregatesOf[slot]) {
+                values.addAndGet(aggregate, delta);
+                revisions.incrementAndGet(aggregate);
+            }
+            version.incrementAndGet();
+        }
+        return delta;
+    }
+    
+    /**
+     * Take a consistent view of every configured value, for rendering many templates against one moment
+     * The same view is returned while nothing in the store or the history has changed since it was taken.
+     * Server values are copied, retrying a few times if a write lands mid-copy, and groups and the total
+     * are summed from the copies so they always match the servers they contain.
+     * @param history The history statistic placeholders read from, or null to show them as 0
+     * @return The view
+     */
+    public CountView view(CountHistory history) {
+        int historyRevision = history != null ? history.getRevision() : 0;
+        CountView current = view;
+        if (current != null && current.history == history && current.historyRevision == historyRevision
+                && current.storeVersion == version.get()) {
+            return current;
+        }
+        
+        int[] viewCounts = new int[slotNames.length];
+        int[] viewMax = new int[slotNames.length];
+        int[] viewLatencies = new int[names.length];
+        int[] viewStates = new int[names.length];
+        int before;
+        int attempts = 0;
+        do {
+            before = version.get();
+            Arrays.fill(viewCounts, names.length, slotNames.length, 0);
+            Arrays.fill(viewMax, names.length, slotNames.length, 0);
+            for (int slot = 0; slot < names.length; slot++) {
+                viewCounts[slot] = counts.get(slot);
+                viewMax[slot] = maxPlayers.get(slot);
+                viewLatencies[slot] = latencies.get(slot);
+                viewStates[slot] = states.get(slot);
+                for (int aggregate : aggregatesOf[slot]) {
+                    viewCounts[aggregate] += viewCounts[slot];
+                    viewMax[aggregate] += viewMax[slot];
+                }
+            }
+        } while (version.get() != before && ++attempts < 3);
+        // A copy that kept racing writes is still self-consistent, it just isn't reused
+        current = new CountView(this, history, before, historyRevision, viewCounts, viewMax, viewLatencies, viewStates);
+        view = current;
+        return current;
+    }
+    
+    /**
+     * @param slot A server slot
+     * @param aggregate Any slot
+     * @return true if the aggregate slot sums the server slot's count
+     */
+    boolean isAggregateOf(int slot, int aggregate) {
+        for (int candidate : aggregatesOf[slot]) {
+            if (candidate == aggregate) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * @param listener Called with the server slot after each count change, on the thread that made it
+     */
+    void setChangeListener(IntConsumer listener) {
+        this.changeListener = listener;
+    }
+    
+    /**
+     * Get the player count in a slot as a string
+     * The same String instance is returned until the count changes.
+     * @param slot A slot returned by {@link #slotOf(String)}
+     * @return The player count as a string
+     */
+    public String getText(int slot) {
+        int count = counts.get(slot);
+        // Racing readers may both rebuild the text, which is harmless since CountText is immutable
+        CountText text = texts[slot];
+        if (text == null || text.count != count) {
+            text = new CountText(count);
+            texts[slot] = text;
+        }
+        return text.text;
+    }
+    
+    /**
+     * Get the player count for a server by name
+     * @param serverName The server name
+     * @return The player count, or 0 if not found
+     */
+    public int get(String serverName) {
+        int slot = slotOf(serverName);
+        if (slot >= 0) {
+            return counts.get(slot);
+        }
+        AtomicInteger count = unconfigured.get(serverName);
+        return count == null ? 0 : count.get();
+    }
+    
+    public void set(String serverName, int count) {
+        int slot = slotOf(serverName);
+        if (slot >= 0) {
+            set(slot, count);
+        } else {
+            unconfigured.computeIfAbsent(serverName, name -> new AtomicInteger()).set(count);
+            PlayerCountStore next = successor;
+            if (next != null) {
+                next.set(serverName, count);
+            }
+        }
+    }
+    
+    /**
+     * @return The configuration this layout was built from
+     */
+    public PluginConfig getConfig() {
+        return config;
+    }
+    
+    /**
+     * @return Every name that resolves to a slot, aliases and aggregates included
+     */
+    public List<String> getLookupNames() {
+        return List.of(lookupNames);
+    }
+    
+    /**
+     * @return The number of configured server slots, aggregates excluded
+     */
+    public int size() {
+        return names.length;
+    }
+    
+    public String nameOf(int slot) {
+        return names[slot];
+    }
+    
+    /**
+     * @return The number of slots, aggregates included
+     */
+    public int slotCount() {
+        return slotNames.length;
+    }
+    
+    /**
+     * @param slot Any slot, aggregates included
+     * @return The server name, or "group_<name>" or "total" for an aggregate slot
+     */
+    public String slotName(int slot) {
+        return slotNames[slot];
+    }
+    
+    private static final class CountText {
+        final int count;
+        final String text;
+        
+        CountText(int count) {
+            this.count = count;
+            this.text = String.valueOf(count);
+        }
+    }
+}
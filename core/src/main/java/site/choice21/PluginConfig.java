@@ -0,0 +1,496 @@
+package site.choice21;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable plugin configuration loaded from config.toml
+ */
+public class PluginConfig {
+    private final Map<String, ServerSettings> serverSettings;
+    private final Map<String, String> servers;
+    private final Map<String, String> aliases;
+    private final Map<String, List<String>> groups;
+    private final Map<String, Object> settings;
+    
+    /**
+     * How the Velocity proxy keeps player counts up to date
+     */
+    public enum CountMode {
+        /** Ping every configured server on a timer */
+        PING,
+        /** Count connections from proxy events and reconcile periodically */
+        EVENTS
+    }
+    
+    /**
+     * Create an empty configuration
+     */
+    public PluginConfig() {
+        this(Map.of(), Map.of(), Map.of());
+    }
+    
+    private PluginConfig(Map<String, ServerSettings> serverSettings, Map<String, List<String>> groups, Map<String, Object> settings) {
+        Map<String, String> servers = new LinkedHashMap<>();
+        Map<String, String> aliases = new LinkedHashMap<>();
+        for (ServerSettings server : serverSettings.values()) {
+            servers.put(server.getName(), server.getId());
+            for (String alias : server.getAliases()) {
+                aliases.put(alias, server.getName());
+            }
+        }
+        this.serverSettings = Collections.unmodifiableMap(new LinkedHashMap<>(serverSettings));
+        this.servers = Collections.unmodifiableMap(servers);
+        this.aliases = Collections.unmodifiableMap(aliases);
+        this.groups = Collections.unmodifiableMap(new LinkedHashMap<>(groups));
+        this.settings = Collections.unmodifiableMap(new LinkedHashMap<>(settings));
+    }
+    
+    public static PluginConfig load(Path configPath) throws IOException {
+        if (!Files.exists(configPath)) {
+            return new PluginConfig();
+        }
+        
+        return parse(Files.readString(configPath));
+    }
+    
+    /**
+     * Parse configuration from TOML text
+     * @param content The contents of config.toml
+     * @return The parsed configuration
+     * @throws IOException If the TOML is invalid or a setting has the wrong type
+     */
+    public static PluginConfig parse(String content) throws IOException {
+        Map<String, Object> root = TomlParser.parse(content);
+        
+        Map<String, ServerSettings> serverSettings = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : table(root, "servers").entrySet()) {
+            ServerSettings server = parseServer(entry.getKey(), entry.getValue());
+            serverSettings.put(server.getName(), server);
+        }
+        
+        // Aliases share their server's count, so they can't shadow another name
+        Map<String, String> seen = new LinkedHashMap<>();
+        for (ServerSettings server : serverSettings.values()) {
+            for (String alias : server.getAliases()) {
+                if (serverSettings.containsKey(alias) || seen.containsKey(alias)) {
+                    throw new IOException("Alias '" + alias + "' of server '" + server.getName() + "' is already in use");
+                }
+                seen.put(alias, server.getName());
+            }
+        }
+        
+        Map<String, List<String>> groups = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : table(root, "groups").entrySet()) {
+            groups.put(entry.getKey(), parseGroup(entry.getKey(), entry.getValue(), serverSettings, seen));
+        }
+        
+        return new PluginConfig(serverSettings, groups, table(root, "settings"));
+    }
+    
+    private static List<String> parseGroup(String name, Object value, Map<String, ServerSettings> serverSettings,
+                                           Map<String, String> aliases) throws IOException {
+        if (!(value instanceof List)) {
+            throw new IOException("Group '" + name + "' must be a list of server names");
+        }
+        List<String> members = new ArrayList<>();
+        for (Object member : (List<?>) value) {
+            if (!(member instanceof String)) {
+                throw new IOException("Group '" + name + "' has a non-string member");
+            }
+            // Aliases are resolved here so groups only ever reference real servers
+            String serverName = aliases.getOrDefault(member, (String) member);
+            if (!serverSettings.containsKey(serverName)) {
+                throw new IOException("Group '" + name + "' references unknown server '" + member + "'");
+            }
+            if (!members.contains(serverName)) {
+                members.add(serverName);
+            }
+        }
+        return List.copyOf(members);
+    }
+    
+    private static ServerSettings parseServer(String name, Object value) throws IOException {
+        // Short form: name = "id"
+        if (value instanceof String) {
+            return new ServerSettings(name, (String) value, ServerSettings.Source.AUTO, 0, 0, List.of());
+        }
+        if (!(value instanceof Map)) {
+            throw new IOException("Server '" + name + "' must be a string or a table");
+        }
+        
+        @SuppressWarnings("unchecked")
+        Map<String, Object> table = (Map<String, Object>) value;
+        String id = string(table, "id", name, name);
+        ServerSettings.Source source;
+        try {
+            source = ServerSettings.Source.parse(string(table, "source", null, name));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Server '" + name + "' has an invalid source, expected ping, event or current");
+        }
+        int pollInterval = (int) number(table, "poll_interval", 0, name);
+        int timeout = (int) number(table, "timeout", 0, name);
+        
+        List<String> aliases = new ArrayList<>();
+        Object aliasValue = table.get("aliases");
+        if (aliasValue instanceof String) {
+            aliases.add((String) aliasValue);
+        } else if (aliasValue instanceof List) {
+            for (Object alias : (List<?>) aliasValue) {
+                if (!(alias instanceof String)) {
+                    throw new IOException("Server '" + name + "' has a non-string alias");
+                }
+                aliases.add((String) alias);
+            }
+        } else if (aliasValue != null) {
+            throw new IOException("Server '" + name + "' aliases must be a list of strings");
+        }
+        
+        return new ServerSettings(name, id, source, pollInterval, timeout, aliases);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> table(Map<String, Object> root, String key) throws IOException {
+        Object value = root.get(key);
+        if (value == null) {
+            return Map.of();
+        }
+        if (!(value instanceof Map)) {
+            throw new IOException("[" + key + "] must be a table");
+        }
+        return (Map<String, Object>) value;
+    }
+    
+    private static String string(Map<String, Object> table, String key, String defaultValue, String server) throws IOException {
+        Object value = table.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        if (!(value instanceof String)) {
+            throw new IOException("Server '" + server + "' setting " + key + " must be a string");
+        }
+        return (String) value;
+    }
+    
+    private static long number(Map<String, Object> table, String key, long defaultValue, String server) throws IOException {
+        Object value = table.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        if (!(value instanceof Number)) {
+            throw new IOException("Server '" + server + "' setting " + key + " must be a number");
+        }
+        return ((Number) value).longValue();
+    }
+    
+    /**
+     * @return Configured server names mapped to their server ids, aliases excluded
+     */
+    public Map<String, String> getServers() {
+        return servers;
+    }
+    
+    /**
+     * @return Typed settings for every configured server, in config order
+     */
+    public Collection<ServerSettings> getServerSettings() {
+        return serverSettings.values();
+    }
+    
+    /**
+     * @param serverName The configured server name
+     * @return The server's settings, or null if it isn't configured
+     */
+    public ServerSettings getServer(String serverName) {
+        return serverSettings.get(serverName);
+    }
+    
+    /**
+     * @return Alias names mapped to the server name they show
+     */
+    public Map<String, String> getAliases() {
+        return aliases;
+    }
+    
+    /**
+     * @return Group names mapped to the server names they add up, aliases already resolved
+     */
+    public Map<String, List<String>> getGroups() {
+        return groups;
+    }
+    
+    /**
+     * @return The counting mode, PING unless count_mode = "events" is set
+     */
+    public CountMode getCountMode() {
+        String mode = getStringSetting("count_mode", "ping");
+        return mode.toLowerCase(Locale.ROOT).equals("events") ? CountMode.EVENTS : CountMode.PING;
+    }
+    
+    /**
+     * @return Whether servers the proxy doesn't know about should still be pinged in EVENTS mode
+     */
+    public boolean isPingFallback() {
+        return getBooleanSetting("ping_fallback", true);
+    }
+    
+    /**
+     * @return Seconds between reconciling event counts against the proxy's connection lists
+     */
+    public int getReconcileInterval() {
+        return getIntSetting("reconcile_interval", 60);
+    }
+    
+    /**
+     * @return Seconds between polls of a server that hasn't settled into a faster or slower rhythm yet
+     */
+    public int getPollInterval() {
+        return getIntSetting("poll_interval", 5);
+    }
+    
+    /**
+     * @return Shortest number of seconds between polls of a fast-changing server
+     */
+    public int getPollMinInterval() {
+        return getIntSetting("poll_min_interval", 2);
+    }
+    
+    /**
+     * @return Longest number of seconds between polls of an idle server
+     */
+    public int getPollMaxInterval() {
+        return getIntSetting("poll_max_interval", 30);
+    }
+    
+    /**
+     * @return Longest number of seconds to back off from a server that keeps failing
+     */
+    public int getMaxBackoff() {
+        return getIntSetting("max_backoff", 120);
+    }
+    
+    /**
+     * @return Seconds a resolved server address is cached before it is refreshed in the background
+     */
+    public int getDnsTtl() {
+        return getIntSetting("dns_ttl", 60);
+    }
+    
+    /**
+     * @return Seconds a failed address lookup is cached
+     */
+    public int getDnsNegativeTtl() {
+        return getIntSetting("dns_negative_ttl", 10);
+    }
+    
+    /**
+     * @return Seconds before a ping counts as failed
+     */
+    public int getPingTimeout() {
+        return getIntSetting("ping_timeout", 3);
+    }
+    
+    /**
+     * @return Most pings in flight at once, further pings wait for a free slot
+     */
+    public int getMaxConcurrentPings() {
+        return getIntSetting("max_concurrent_pings", 16);
+    }
+    
+    /**
+     * @return Random spread applied to each poll delay, as a fraction of the delay
+     */
+    public double getPollJitter() {
+        return getDoubleSetting("poll_jitter", 0.2);
+    }
+    
+    /**
+     * @return Player count from which a server is always polled at least every poll_interval seconds
+     */
+    public int getBusyThreshold() {
+        return getIntSetting("busy_threshold", 50);
+    }
+    
+    /**
+     * @return Seconds between saving the count snapshot, 0 to only save on shutdown
+     */
+    public int getSnapshotInterval() {
+        return getIntSetting("snapshot_interval", 60);
+    }
+    
+    /**
+     * @return Oldest snapshot entry, in seconds, still restored on startup, 0 to never restore
+     */
+    public int getSnapshotMaxAge() {
+        return getIntSetting("snapshot_max_age", 600);
+    }
+    
+    /**
+     * @return Whether counts are pushed from the proxy to backends over plugin messaging, instead of backends pinging
+     */
+    public boolean isProxyPush() {
+        return getBooleanSetting("proxy_push", false);
+    }
+    
+    /**
+     * @return Seconds between batches of count changes pushed by the proxy
+     */
+    public double getPushInterval() {
+        return getDoubleSetting("push_interval", 0.5);
+    }
+    
+    /**
+     * @return Port to serve Prometheus metrics on, 0 to disable
+     */
+    public int getMetricsPort() {
+        return getIntSetting("metrics_port", 0);
+    }
+    
+    /**
+     * @return Address the metrics endpoint listens on
+     */
+    public String getMetricsHost() {
+        return getStringSetting("metrics_host", "127.0.0.1");
+    }
+    
+    /**
+     * @return UDP port this proxy shares its counts with peer proxies on, 0 to disable federation
+     */
+    public int getFederationPort() {
+        return getIntSetting("federation_port", 0);
+    }
+    
+    /**
+     * @return Address the federation port is bound to
+     */
+    public String getFederationHost() {
+        return getStringSetting("federation_host", "0.0.0.0");
+    }
+    
+    /**
+     * @return "host:port" addresses of the other proxies
+     */
+    public List<String> getFederationPeers() {
+        return getStringListSetting("federation_peers");
+    }
+    
+    /**
+     * @return Seconds between count messages sent to each peer
+     */
+    public double getFederationInterval() {
+        return getDoubleSetting("federation_interval", 1);
+    }
+    
+    /**
+     * @return Seconds without a message after which a peer's counts are dropped
+     */
+    public double getFederationExpiry() {
+        return getDoubleSetting("federation_expiry", 5);
+    }
+    
+    /**
+     * @return MiniMessage text shown as the proxy's server list MOTD, empty to keep the proxy's own
+     */
+    public String getMotd() {
+        return getStringSetting("motd", "");
+    }
+    
+    /**
+     * @return MiniMessage lines shown when hovering over the player count, empty to keep the proxy's own
+     */
+    public List<String> getMotdHover() {
+        return getStringListSetting("motd_hover");
+    }
+    
+    /**
+     * @return Text rendered into the player count shown in the server list, empty to keep the proxy's own
+     */
+    public String getMotdOnline() {
+        return getStringSetting("motd_online", "");
+    }
+    
+    /**
+     * @return Text shown by %status_<server>% while the server answers pings
+     */
+    public String getStatusOnlineText() {
+        return getStringSetting("status_online", "online");
+    }
+    
+    /**
+     * @return Text shown by %status_<server>% when the last ping failed
+     */
+    public String getStatusOfflineText() {
+        return getStringSetting("status_offline", "offline");
+    }
+    
+    /**
+     * @return Text shown by %status_<server>% before the first ping, or for servers that aren't pinged
+     */
+    public String getStatusUnknownText() {
+        return getStringSetting("status_unknown", "unknown");
+    }
+    
+    /**
+     * @return Whether config.toml is watched and re-applied when it changes
+     */
+    public boolean isHotReload() {
+        return getBooleanSetting("hot_reload", true);
+    }
+    
+    private String getStringSetting(String key, String defaultValue) {
+        Object value = settings.get(key);
+        return value == null ? defaultValue : value.toString();
+    }
+    
+    private List<String> getStringListSetting(String key) {
+        Object value = settings.get(key);
+        if (!(value instanceof List)) {
+            return List.of();
+        }
+        List<String> result = new ArrayList<>();
+        for (Object element : (List<?>) value) {
+            if (element instanceof String) {
+                result.add((String) element);
+            }
+        }
+        return List.copyOf(result);
+    }
+    
+    private int getIntSetting(String key, int defaultValue) {
+        return (int) getDoubleSetting(key, defaultValue);
+    }
+    
+    private double getDoubleSetting(String key, double defaultValue) {
+        Object value = settings.get(key);
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof String) {
+            try {
+                return Double.parseDouble((String) value);
+            } catch (NumberFormatException e) {
+                return defaultValue;
+            }
+        }
+        return defaultValue;
+    }
+    
+    private boolean getBooleanSetting(String key, boolean defaultValue) {
+        Object value = settings.get(key);
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        if (value instanceof String) {
+            return Boolean.parseBoolean((String) value);
+        }
+        return defaultValue;
+    }
+}
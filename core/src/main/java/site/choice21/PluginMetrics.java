@@ -0,0 +1,305 @@
+package site.choice21;
+
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Poll and placeholder statistics
+ * Every update is a LongAdder increment or a volatile write, so recording never blocks the hot path.
+ * Placeholder render time is measured on a random 1 in 64 sample of renders.
+ */
+public final class PluginMetrics implements PollScheduler.Listener {
+    // Upper bounds of the latency buckets in milliseconds, followed by an open-ended bucket
+    private static final long[] LATENCY_BUCKETS_MILLIS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000};
+    private static final int RENDER_SAMPLE_MASK = 63;
+    
+    private final Map<String, ServerMetrics> servers = new ConcurrentHashMap<>();
+    private final LongAdder renders = new LongAdder();
+    private final LongAdder sampledRenders = new LongAdder();
+    private final LongAdder sampledRenderNanos = new LongAdder();
+    private final LongAdder placeholderRequests = new LongAdder();
+    
+    @Override
+    public void onPoll(String serverName, long latencyNanos, Throwable error) {
+        ServerMetrics server = getServer(serverName);
+        if (error == null) {
+            server.latency.record(latencyNanos);
+            server.successes.increment();
+            server.lastSuccessMillis = System.currentTimeMillis();
+        } else if (isTimeout(error)) {
+            server.timeouts.increment();
+        } else {
+            server.errors.increment();
+        }
+    }
+    
+    private static boolean isTimeout(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause instanceof TimeoutException || cause instanceof SocketTimeoutException;
+    }
+    
+    /**
+     * Count a placeholder render and decide whether to time it
+     * @return true if the caller should time this render and report it with {@link #recordRenderNanos(long)}
+     */
+    public boolean countRender() {
+        renders.increment();
+        return (ThreadLocalRandom.current().nextInt() & RENDER_SAMPLE_MASK) == 0;
+    }
+    
+    public void recordRenderNanos(long nanos) {
+        sampledRenders.increment();
+        sampledRenderNanos.add(nanos);
+    }
+    
+    /**
+     * Count a request from PlaceholderAPI
+     */
+    public void countPlaceholderRequest() {
+        placeholderRequests.increment();
+    }
+    
+    /**
+     * Get the metrics for a server, creating them on first use
+     * @param serverName The configured server name
+     * @return The server's metrics
+     */
+    public ServerMetrics getServer(String serverName) {
+        ServerMetrics server = servers.get(serverName);
+        return server != null ? server : servers.computeIfAbsent(serverName, name -> new ServerMetrics());
+    }
+    
+    /**
+     * Drop metrics for servers that are no longer configured
+     * @param serverNames The servers to keep
+     */
+    public void retainServers(Collection<String> serverNames) {
+        servers.keySet().retainAll(serverNames);
+    }
+    
+    /**
+     * Format a human-readable summary, one line per entry
+     * @param store The store to read current player counts from
+     * @return The summary lines
+     */
+    public List<String> formatStats(PlayerCountStore store) {
+        List<String> lines = new ArrayList<>();
+        long sampled = sampledRenders.sum();
+        lines.add("Placeholders: " + renders.sum() + " renders"
+                + (sampled > 0 ? String.format(Locale.ROOT, ", avg %.2f us", sampledRenderNanos.sum() / 1000.0 / sampled) : "")
+                + ", " + placeholderRequests.sum() + " PlaceholderAPI requests");
+        
+        long now = System.currentTimeMillis();
+        for (int slot = 0; slot < store.size(); slot++) {
+            String serverName = store.nameOf(slot);
+            StringBuilder line = new StringBuilder(serverName).append(": ").append(store.get(slot)).append(" players");
+            if (store.isStale(slot)) {
+                line.append(" (stale)");
+            }
+            if (store.getState(slot) == PlayerCountStore.STATE_ONLINE) {
+                line.append(" / ").append(store.getMax(slot)).append(" max, ").append(store.getLatency(slot)).append(" ms");
+                if (store.getVersion(slot) != null) {
+                    line.append(", ").append(store.getVersion(slot));
+                }
+            } else if (store.getState(slot) == PlayerCountStore.STATE_OFFLINE) {
+                line.append(" (offline)");
+            }
+            ServerMetrics server = servers.get(serverName);
+            if (server != null) {
+                line.append(" | ").append(server.successes.sum()).append(" ok, ")
+                        .append(server.timeouts.sum()).append(" timeout, ")
+                        .append(server.errors.sum()).append(" error");
+                if (server.latency.count() > 0) {
+                    line.append(" | p50 ").append(server.latency.percentileMillis(0.5))
+                            .append(" ms, p99 ").append(server.latency.percentileMillis(0.99)).append(" ms");
+                }
+                if (server.lastSuccessMillis > 0) {
+                    line.append(" | last success ").append((now - server.lastSuccessMillis) / 1000).append("s ago");
+                }
+            }
+            lines.add(line.toString());
+        }
+        return lines;
+    }
+    
+    /**
+     * Render every metric in the Prometheus text exposition format
+     * @param store The store to read current player counts from
+     * @return The metrics text
+     */
+    public String toPrometheus(PlayerCountStore store) {
+        StringBuilder out = new StringBuilder(1024);
+        out.append("# HELP vplaceholders_players Current player count\n");
+        out.append("# TYPE vplaceholders_players gauge\n");
+        for (int slot = 0; slot < store.size(); slot++) {
+            sample(out, "vplaceholders_players", store.nameOf(slot), null, store.get(slot));
+        }
+        
+        out.append("# HELP vplaceholders_polls_total Polls by outcome\n");
+        out.append("# TYPE vplaceholders_polls_total counter\n");
+        for (Map.Entry<String, ServerMetrics> entry : servers.entrySet()) {
+            ServerMetrics server = entry.getValue();
+            sample(out, "vplaceholders_polls_total", entry.getKey(), "result=\"success\"", server.successes.sum());
+            sample(out, "vplaceholders_polls_total", entry.getKey(), "result=\"timeout\"", server.timeouts.sum());
+            sample(out, "vplaceholders_polls_total", entry.getKey(), "result=\"error\"", server.errors.sum());
+        }
+        
+        out.append("# HELP vplaceholders_poll_latency_seconds Latency of successful polls\n");
+        out.append("# TYPE vplaceholders_poll_latency_seconds histogram\n");
+        for (Map.Entry<String, ServerMetrics> entry : servers.entrySet()) {
+            LatencyHistogram latency = entry.getValue().latency;
+            long cumulative = 0;
+            for (int i = 0; i < LATENCY_BUCKETS_MILLIS.length; i++) {
+                cumulative += latency.buckets[i].sum();
+                String le = "le=\"" + LATENCY_BUCKETS_MILLIS[i] / 1000.0 + "\"";
+                sample(out, "vplaceholders_poll_latency_seconds_bucket", entry.getKey(), le, cumulative);
+            }
+            cumulative += latency.buckets[LATENCY_BUCKETS_MILLIS.length].sum();
+            sample(out, "vplaceholders_poll_latency_seconds_bucket", entry.getKey(), "le=\"+Inf\"", cumulative);
+            sample(out, "vplaceholders_poll_latency_seconds_sum", entry.getKey(), null, latency.sumNanos.sum() / 1e9);
+            sample(out, "vplaceholders_poll_latency_seconds_count", entry.getKey(), null, cumulative);
+        }
+        
+        out.append("# HELP vplaceholders_last_success_age_seconds Seconds since the last successful poll\n");
+        out.append("# TYPE vplaceholders_last_success_age_seconds gauge\n");
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, ServerMetrics> entry : servers.entrySet()) {
+            long lastSuccess = entry.getValue().lastSuccessMillis;
+            if (lastSuccess > 0) {
+                sample(out, "vplaceholders_last_success_age_seconds", entry.getKey(), null, (now - lastSuccess) / 1000.0);
+            }
+        }
+        
+        out.append("# HELP vplaceholders_renders_total Placeholder strings rendered\n");
+        out.append("# TYPE vplaceholders_renders_total counter\n");
+        sample(out, "vplaceholders_renders_total", null, null, renders.sum());
+        out.append("# HELP vplaceholders_render_sampled_seconds Time spent in a 1 in 64 sample of renders\n");
+        out.append("# TYPE vplaceholders_render_sampled_seconds summary\n");
+        sample(out, "vplaceholders_render_sampled_seconds_sum", null, null, sampledRenderNanos.sum() / 1e9);
+        sample(out, "vplaceholders_render_sampled_seconds_count", null, null, sampledRenders.sum());
+        out.append("# HELP vplaceholders_placeholderapi_requests_total PlaceholderAPI requests\n");
+        out.append("# TYPE vplaceholders_placeholderapi_requests_total counter\n");
+        sample(out, "vplaceholders_placeholderapi_requests_total", null, null, placeholderRequests.sum());
+        return out.toString();
+    }
+    
+    private static void sample(StringBuilder out, String name, String server, String extraLabel, double value) {
+        out.append(name);
+        if (server != null || extraLabel != null) {
+            out.append('{');
+            if (server != null) {
+                out.append("server=\"");
+                escapeLabel(out, server);
+                out.append('"');
+            }
+            if (extraLabel != null) {
+                out.append(server != null ? "," : "").append(extraLabel);
+            }
+            out.append('}');
+        }
+        out.append(' ');
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            out.append((long) value);
+        } else {
+            out.append(value);
+        }
+        out.append('\n');
+    }
+    
+    private static void escapeLabel(StringBuilder out, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' || c == '"') {
+                out.append('\\').append(c);
+            } else if (c == '\n') {
+                out.append("\\n");
+            } else {
+                out.append(c);
+            }
+        }
+    }
+    
+    /**
+     * Counters for one server
+     */
+    public static final class ServerMetrics {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder successes = new LongAdder();
+        final LongAdder timeouts = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        volatile long lastSuccessMillis;
+        
+        public long getSuccesses() {
+            return successes.sum();
+        }
+        
+        public long getTimeouts() {
+            return timeouts.sum();
+        }
+        
+        public long getErrors() {
+            return errors.sum();
+        }
+        
+        /**
+         * @return Epoch millis of the last successful poll, or 0 if there hasn't been one
+         */
+        public long getLastSuccessMillis() {
+            return lastSuccessMillis;
+        }
+    }
+    
+    static final class LatencyHistogram {
+        final LongAdder[] buckets = new LongAdder[LATENCY_BUCKETS_MILLIS.length + 1];
+        final LongAdder sumNanos = new LongAdder();
+        
+        LatencyHistogram() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+        
+        void record(long nanos) {
+            long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+            int bucket = 0;
+            while (bucket < LATENCY_BUCKETS_MILLIS.length && millis > LATENCY_BUCKETS_MILLIS[bucket]) {
+                bucket++;
+            }
+            buckets[bucket].increment();
+            sumNanos.add(nanos);
+        }
+        
+        long count() {
+            long count = 0;
+            for (LongAdder bucket : buckets) {
+                count += bucket.sum();
+            }
+            return count;
+        }
+        
+        /**
+         * @return The upper bound of the bucket containing the percentile, or the top bound if it is in the open bucket
+         */
+        long percentileMillis(double percentile) {
+            long target = (long) Math.ceil(count() * percentile);
+            long cumulative = 0;
+            for (int i = 0; i < LATENCY_BUCKETS_MILLIS.length; i++) {
+                cumulative += buckets[i].sum();
+                if (cumulative >= target) {
+                    return LATENCY_BUCKETS_MILLIS[i];
+                }
+            }
+            return LATENCY_BUCKETS_MILLIS[LATENCY_BUCKETS_MILLIS.length - 1];
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package site.choice21;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polls each server on its own adaptive schedule
+ * Probes are spread across the interval with jitter, failing servers back off exponentially,
+ * and busy or fast-changing servers are polled more often than idle ones.
+ */
+public final class PollScheduler implements AutoCloseable {
+    private final Probe probe;
+    private final Listener listener;
+    private final ScheduledExecutorService executor;
+    private final Map<String, Target> targets = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+    
+    /**
+     * Polls a single server
+     */
+    @FunctionalInterface
+    public interface Probe {
+        /**
+         * Poll a server and store its player count
+         * @param serverName The configured server name
+         * @return A future completed with the player count, failed if the server couldn't be reached,
+         *         or failed with a {@link SkippedException} if there was nothing to poll through this time
+         */
+        CompletableFuture<Integer> poll(String serverName);
+    }
+    
+    /**
+     * Fails a probe that couldn't be attempted, rather than one that was attempted and failed
+     * The server is polled again after its base interval, without backing off and without telling the listener.
+     */
+    public static class SkippedException extends IllegalStateException {
+        private static final long serialVersionUID = 1L;
+        
+        public SkippedException(String message) {
+            super(message);
+        }
+    }
+    
+    /**
+     * Told about the outcome of every probe
+     */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * @param serverName The configured server name
+         * @param latencyNanos Time from starting the probe until it finished or timed out
+         * @param error The failure, a TimeoutException if the probe took too long, or null on success
+         */
+        void onPoll(String serverName, long latencyNanos, Throwable error);
+    }
+    
+    public PollScheduler(Probe probe, Listener listener, String threadName) {
+        this.probe = probe;
+        this.listener = listener;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Set the servers to poll, each with its own settings
+     * New servers get a random first delay within their base interval so probes don't arrive in one burst.
+     * Servers already being polled keep their schedule and pick up new settings from their next probe.
+     * Servers that are no longer listed stop being polled.
+     * @param servers Settings keyed by configured server name
+     */
+    public void setServers(Map<String, Settings> servers) {
+        targets.entrySet().removeIf(entry -> {
+            if (servers.containsKey(entry.getKey())) {
+                return false;
+            }
+            entry.getValue().cancel();
+            return true;
+        });
+        
+        for (Map.Entry<String, Settings> entry : servers.entrySet()) {
+            Settings settings = entry.getValue();
+            targets.compute(entry.getKey(), (name, existing) -> {
+                if (existing != null) {
+                    existing.settings = settings;
+                    return existing;
+                }
+                Target target = new Target(name, settings);
+                schedule(target, ThreadLocalRandom.current().nextLong(settings.baseIntervalMillis + 1));
+                return target;
+            });
+        }
+    }
+    
+    @Override
+    public void close() {
+        closed = true;
+        for (Target target : targets.values()) {
+            target.cancel();
+        }
+        targets.clear();
+        executor.shutdownNow();
+    }
+    
+    private void schedule(Target target, long delayMillis) {
+        if (closed || target.cancelled) {
+            return;
+        }
+        target.task = executor.schedule(() -> poll(target), delayMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    private void poll(Target target) {
+        if (target.cancelled) {
+            return;
+        }
+        
+        long start = System.nanoTime();
+        CompletableFuture<Integer> result;
+        try {
+            result = probe.poll(target.serverName);
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        // Timeouts count as failures, so a hung server backs off like an offline one
+        result.copy().orTimeout(target.settings.timeoutMillis, TimeUnit.MILLISECONDS)
+                .whenComplete((count, throwable) -> {
+                    Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                            ? throwable.getCause() : throwable;
+                    if (cause instanceof SkippedException) {
+                        schedule(target, withJitter(target.settings, target.settings.baseIntervalMillis));
+                        return;
+                    }
+                    listener.onPoll(target.serverName, System.nanoTime() - start, throwable);
+                    schedule(target, nextDelay(target, count, throwable));
+                });
+    }
+    
+    private long nextDelay(Target target, Integer count, Throwable throwable) {
+        Settings settings = target.settings;
+        if (throwable != null || count == null) {
+            target.failures = Math.min(target.failures + 1, 30);
+            long backoff = settings.baseIntervalMillis << Math.min(target.failures, 20);
+            return withJitter(settings, Math.min(settings.maxBackoffMillis, backoff));
+        }
+        
+        long interval = target.intervalMillis;
+        if (target.failures > 0 || target.lastCount != count) {
+            // Recovered or changing: tighten the interval to follow it closely
+            interval /= 2;
+        } else {
+            // Unchanged since the last poll: relax gradually
+            interval += interval / 2;
+        }
+        if (count >= settings.busyThreshold) {
+            interval = Math.min(interval, settings.baseIntervalMillis);
+        }
+        interval = Math.max(settings.minIntervalMillis, Math.min(settings.maxIntervalMillis, interval));
+        
+        target.failures = 0;
+        target.lastCount = count;
+        target.intervalMillis = interval;
+        return withJitter(settings, interval);
+    }
+    
+    private static long withJitter(Settings settings, long delayMillis) {
+        long spread = (long) (delayMillis * settings.jitter);
+        if (spread <= 0) {
+            return delayMillis;
+        }
+        return Math.max(0, delayMillis + ThreadLocalRandom.current().nextLong(-spread, spread + 1));
+    }
+    
+    /**
+     * Bounds and tuning for the scheduler, in milliseconds
+     */
+    public static final class Settings {
+        final long baseIntervalMillis;
+        final long minIntervalMillis;
+        final long maxIntervalMillis;
+        final long maxBackoffMillis;
+        final long timeoutMillis;
+        final double jitter;
+        final int busyThreshold;
+        
+        /**
+         * @param baseIntervalMillis Interval for new servers and the cap for busy ones
+         * @param minIntervalMillis Shortest interval for fast-changing servers
+         * @param maxIntervalMillis Longest interval for idle servers
+         * @param maxBackoffMillis Longest delay between probes of a failing server
+         * @param timeoutMillis Time after which a probe counts as failed
+         * @param jitter Random spread applied to every delay, as a fraction of the delay
+         * @param busyThreshold Player count at which a server is never polled less often than the base interval
+         */
+        public Settings(long baseIntervalMillis, long minIntervalMillis, long maxIntervalMillis,
+                        long maxBackoffMillis, long timeoutMillis, double jitter, int busyThreshold) {
+            this.baseIntervalMillis = Math.max(1, baseIntervalMillis);
+            this.minIntervalMillis = Math.max(1, Math.min(minIntervalMillis, this.baseIntervalMillis));
+            this.maxIntervalMillis = Math.max(this.baseIntervalMillis, maxIntervalMillis);
+            this.maxBackoffMillis = Math.max(this.baseIntervalMillis, maxBackoffMillis);
+            this.timeoutMillis = Math.max(1, timeoutMillis);
+            this.jitter = Math.max(0, Math.min(0.5, jitter));
+            this.busyThreshold = busyThreshold;
+        }
+    }
+    
+    private static final class Target {
+        final String serverName;
+        volatile Settings settings;
+        // Updated by the completion of the probe in flight, at most one per target at a time
+        volatile long intervalMillis;
+        volatile int failures;
+        volatile int lastCount = -1;
+        volatile boolean cancelled;
+        volatile ScheduledFuture<?> task;
+        
+        Target(String serverName, Settings settings) {
+            this.serverName = serverName;
+            this.settings = settings;
+            this.intervalMillis = settings.baseIntervalMillis;
+        }
+        
+        void cancel() {
+            cancelled = true;
+            ScheduledFuture<?> current = task;
+            if (current != null) {
+                current.cancel(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package site.choice21;
+
+import java.util.Locale;
+
+/**
+ * A "host:port" server id, parsed once when the configuration loads
+ */
+public final class ServerEndpoint {
+    /** Port used when an id has no port */
+    public static final int DEFAULT_PORT = 25565;
+    
+    private final String host;
+    private final int port;
+    
+    private ServerEndpoint(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+    
+    /**
+     * Parse a server id
+     * @param serverId "host:port", "host", or "[ipv6]:port"
+     * @return The endpoint, or null if the port isn't a valid number
+     */
+    public static ServerEndpoint parse(String serverId) {
+        String host = serverId.trim();
+        int port = DEFAULT_PORT;
+        int colon = host.lastIndexOf(':');
+        // A bare IPv6 address has several colons and no port
+        if (colon >= 0 && (host.indexOf(':') == colon || host.startsWith("["))) {
+            try {
+                port = Integer.parseInt(host.substring(colon + 1));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            host = host.substring(0, colon);
+        }
+        if (host.startsWith("[") && host.endsWith("]")) {
+            host = host.substring(1, host.length() - 1);
+        }
+        if (host.isEmpty() || port < 1 || port > 65535) {
+            return null;
+        }
+        return new ServerEndpoint(host.toLowerCase(Locale.ROOT), port);
+    }
+    
+    public String getHost() {
+        return host;
+    }
+    
+    public int getPort() {
+        return port;
+    }
+    
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof ServerEndpoint)) {
+            return false;
+        }
+        ServerEndpoint endpoint = (ServerEndpoint) other;
+        return port == endpoint.port && host.equals(endpoint.host);
+    }
+    
+    @Override
+    public int hashCode() {
+        return host.hashCode() * 31 + port;
+    }
+    
+    @Override
+    public String toString() {
+        return (host.indexOf(':') >= 0 ? "[" + host + "]" : host) + ":" + port;
+    }
+}
@@ -0,0 +1,109 @@
+package site.choice21;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Typed settings for one configured server
+ */
+public final class ServerSettings {
+    /**
+     * Where a server's player count comes from
+     */
+    public enum Source {
+        /** Pick based on the platform, the server id and count_mode */
+        AUTO,
+        /** Ping the server */
+        PING,
+        /** Count connections from proxy events (Velocity only) */
+        EVENT,
+        /** The player count of the server the plugin runs on */
+        CURRENT;
+        
+        static Source parse(String value) {
+            if (value == null) {
+                return AUTO;
+            }
+            return Source.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+    
+    private final String name;
+    private final String id;
+    private final Source source;
+    private final int pollInterval;
+    private final int timeout;
+    private final List<String> aliases;
+    
+    /**
+     * @param name The name used in placeholders
+     * @param id The server id: a Velocity server name, "host:port", or "current"
+     * @param source Where the count comes from
+     * @param pollInterval Seconds between polls, or 0 to use the global poll_interval
+     * @param timeout Seconds before a ping fails, or 0 to use the global ping_timeout
+     * @param aliases Extra placeholder names that show the same count
+     */
+    public ServerSettings(String name, String id, Source source, int pollInterval, int timeout, List<String> aliases) {
+        this.name = name;
+        this.id = id;
+        this.source = source;
+        this.pollInterval = pollInterval;
+        this.timeout = timeout;
+        this.aliases = List.copyOf(aliases);
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public String getId() {
+        return id;
+    }
+    
+    public Source getSource() {
+        return source;
+    }
+    
+    /**
+     * @return true if the id refers to the server the plugin is running on
+     */
+    public boolean isCurrentServer() {
+        return source == Source.CURRENT || id.equalsIgnoreCase("current") || id.equalsIgnoreCase("this");
+    }
+    
+    /**
+     * @return Seconds between polls, or 0 to use the global setting
+     */
+    public int getPollInterval() {
+        return pollInterval;
+    }
+    
+    /**
+     * @return Seconds before a ping fails, or 0 to use the global setting
+     */
+    public int getTimeout() {
+        return timeout;
+    }
+    
+    public List<String> getAliases() {
+        return aliases;
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ServerSettings)) {
+            return false;
+        }
+        ServerSettings other = (ServerSettings) o;
+        return name.equals(other.name) && id.equals(other.id) && source == other.source
+                && pollInterval == other.pollInterval && timeout == other.timeout && aliases.equals(other.aliases);
+    }
+    
+    @Override
+    public int hashCode() {
+        return name.hashCode() * 31 + id.hashCode();
+    }
+}
@@ -0,0 +1,47 @@
+package site.choice21;
+
+/**
+ * What a server reported in its status response
+ */
+public final class ServerStatus {
+    private final int online;
+    private final int max;
+    private final String version;
+    private final int protocol;
+    private final int latencyMillis;
+    
+    /**
+     * @param online Players online
+     * @param max Player limit
+     * @param version Version name, or null if the server didn't send one
+     * @param protocol Protocol number, or -1 if the server didn't send one
+     * @param latencyMillis Round-trip time of the status request
+     */
+    public ServerStatus(int online, int max, String version, int protocol, int latencyMillis) {
+        this.online = online;
+        this.max = max;
+        this.version = version;
+        this.protocol = protocol;
+        this.latencyMillis = latencyMillis;
+    }
+    
+    public int getOnline() {
+        return online;
+    }
+    
+    public int getMax() {
+        return max;
+    }
+    
+    public String getVersion() {
+        return version;
+    }
+    
+    public int getProtocol() {
+        return protocol;
+    }
+    
+    public int getLatencyMillis() {
+        return latencyMillis;
+    }
+}
@@ -0,0 +1,70 @@
+package site.choice21;
+
+/**
+ * Immutable open-addressing table from names to dense int slots
+ * Lookups don't lock, allocate or box.
+ */
+public final class SlotIndex {
+    private final String[] keys;
+    private final int[] slots;
+    private final int mask;
+    
+    /**
+     * @param names The names to index, each mapped to its position in the array
+     */
+    public SlotIndex(String[] names) {
+        this(names, positions(names.length));
+    }
+    
+    /**
+     * @param names The names to index
+     * @param nameSlots The slot for each name, several names may share a slot
+     */
+    public SlotIndex(String[] names, int[] nameSlots) {
+        int capacity = Integer.highestOneBit(Math.max(2, names.length * 2 - 1)) << 1;
+        this.keys = new String[capacity];
+        this.slots = new int[capacity];
+        this.mask = capacity - 1;
+        for (int slot = 0; slot < names.length; slot++) {
+            int index = spread(names[slot].hashCode()) & mask;
+            while (keys[index] != null) {
+                if (keys[index].equals(names[slot])) {
+                    break;
+                }
+                index = (index + 1) & mask;
+            }
+            if (keys[index] == null) {
+                keys[index] = names[slot];
+                slots[index] = nameSlots[slot];
+            }
+        }
+    }
+    
+    /**
+     * @param name The name to look up
+     * @return The slot, or -1 if the name isn't indexed
+     */
+    public int get(String name) {
+        int index = spread(name.hashCode()) & mask;
+        String key;
+        while ((key = keys[index]) != null) {
+            if (key.equals(name)) {
+                return slots[index];
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+    
+    private static int[] positions(int length) {
+        int[] positions = new int[length];
+        for (int i = 0; i < length; i++) {
+            positions[i] = i;
+        }
+        return positions;
+    }
+    
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,306 @@
+package site.choice21;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Single-pass scanner that pulls players.online, players.max, version.name and version.protocol
+ * out of a status response's UTF-8 JSON without decoding it to a String
+ * Only top-level "players" and "version" objects are read, so the same words inside the MOTD,
+ * player sample or mod list can't be mistaken for them. Everything else is skipped in place.
+ */
+final class StatusJsonScanner {
+    private static final byte[] PLAYERS = ascii("players");
+    private static final byte[] VERSION = ascii("version");
+    private static final byte[] ONLINE = ascii("online");
+    private static final byte[] MAX = ascii("max");
+    private static final byte[] NAME = ascii("name");
+    private static final byte[] PROTOCOL = ascii("protocol");
+    
+    private final byte[] in;
+    private int pos;
+    // Bounds of the last key read, in the input
+    private int keyStart;
+    private int keyEnd;
+    
+    int online = -1;
+    int max = -1;
+    int protocol = -1;
+    String version;
+    
+    private StatusJsonScanner(byte[] in) {
+        this.in = in;
+    }
+    
+    /**
+     * Scan a status response
+     * @param json The JSON bytes
+     * @param latencyMillis Round-trip time of the request
+     * @return The status, with players.online required and the other fields optional
+     * @throws IOException If the JSON is malformed or has no player count
+     */
+    static ServerStatus scan(byte[] json, int latencyMillis) throws IOException {
+        StatusJsonScanner scanner = new StatusJsonScanner(json);
+        try {
+            scanner.readRoot();
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Truncated status response");
+        }
+        if (scanner.online < 0) {
+            throw new IOException("Status response has no players.online");
+        }
+        return new ServerStatus(scanner.online, Math.max(0, scanner.max), scanner.version, scanner.protocol, latencyMillis);
+    }
+    
+    private void readRoot() throws IOException {
+        expect('{');
+        if (peek() == '}') {
+            return;
+        }
+        do {
+            readKey();
+            if (keyIs(PLAYERS) && peek() == '{') {
+                readObject(true);
+            } else if (keyIs(VERSION) && peek() == '{') {
+                readObject(false);
+            } else {
+                skipValue();
+            }
+        } while (nextMember());
+    }
+    
+    private void readObject(boolean players) throws IOException {
+        expect('{');
+        if (peek() == '}') {
+            pos++;
+            return;
+        }
+        do {
+            readKey();
+            if (players && keyIs(ONLINE) && isNumberStart(peek())) {
+                online = readInt();
+            } else if (players && keyIs(MAX) && isNumberStart(peek())) {
+                max = readInt();
+            } else if (!players && keyIs(PROTOCOL) && isNumberStart(peek())) {
+                protocol = readInt();
+            } else if (!players && keyIs(NAME) && peek() == '"') {
+                version = readString();
+            } else {
+                skipValue();
+            }
+        } while (nextMember());
+    }
+    
+    /**
+     * Consume the separator after a member
+     * @return true if another member follows, false at the end of the object
+     */
+    private boolean nextMember() throws IOException {
+        byte b = in[skipWhitespace()];
+        pos++;
+        if (b == ',') {
+            return true;
+        }
+        if (b == '}') {
+            return false;
+        }
+        throw malformed();
+    }
+    
+    private void readKey() throws IOException {
+        expect('"');
+        keyStart = pos;
+        skipStringBody();
+        keyEnd = pos - 1;
+        expect(':');
+    }
+    
+    private boolean keyIs(byte[] key) {
+        if (keyEnd - keyStart != key.length) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (in[keyStart + i] != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private int readInt() throws IOException {
+        int start = pos;
+        boolean negative = in[pos] == '-';
+        if (negative) {
+            pos++;
+        }
+        long value = 0;
+        int digits = 0;
+        while (pos < in.length && in[pos] >= '0' && in[pos] <= '9') {
+            value = Math.min(Integer.MAX_VALUE, value * 10 + (in[pos++] - '0'));
+            digits++;
+        }
+        if (digits == 0) {
+            throw malformed();
+        }
+        if (pos < in.length && (in[pos] == '.' || in[pos] == 'e' || in[pos] == 'E')) {
+            // Some servers send counts as 12.0 or 1.2e1, read those whole and keep the integer part
+            skipNumberRest();
+            try {
+                // The cast truncates and clamps to the int range
+                return (int) Double.parseDouble(new String(in, start, pos - start, StandardCharsets.US_ASCII));
+            } catch (NumberFormatException e) {
+                throw malformed();
+            }
+        }
+        return (int) (negative ? -value : value);
+    }
+    
+    private String readString() throws IOException {
+        expect('"');
+        int start = pos;
+        while (true) {
+            byte b = in[pos];
+            if (b == '"') {
+                pos++;
+                return new String(in, start, pos - 1 - start, StandardCharsets.UTF_8);
+            }
+            if (b == '\\') {
+                return readEscapedString(start);
+            }
+            pos++;
+        }
+    }
+    
+    private String readEscapedString(int start) throws IOException {
+        StringBuilder result = new StringBuilder(new String(in, start, pos - start, StandardCharsets.UTF_8));
+        int runStart = pos;
+        while (true) {
+            byte b = in[pos];
+            if (b == '"') {
+                result.append(new String(in, runStart, pos - runStart, StandardCharsets.UTF_8));
+                pos++;
+                return result.toString();
+            }
+            if (b != '\\') {
+                pos++;
+                continue;
+            }
+            result.append(new String(in, runStart, pos - runStart, StandardCharsets.UTF_8));
+            byte escape = in[pos + 1];
+            pos += 2;
+            switch (escape) {
+                case '"': result.append('"'); break;
+                case '\\': result.append('\\'); break;
+                case '/': result.append('/'); break;
+                case 'b': result.append('\b'); break;
+                case 'f': result.append('\f'); break;
+                case 'n': result.append('\n'); break;
+                case 'r': result.append('\r'); break;
+                case 't': result.append('\t'); break;
+                case 'u':
+                    try {
+                        result.append((char) Integer.parseInt(new String(in, pos, 4, StandardCharsets.US_ASCII), 16));
+                    } catch (NumberFormatException e) {
+                        throw malformed();
+                    }
+                    pos += 4;
+                    break;
+                default:
+                    throw malformed();
+            }
+            runStart = pos;
+        }
+    }
+    
+    private void skipValue() throws IOException {
+        byte b = in[skipWhitespace()];
+        if (b == '"') {
+            pos++;
+            skipStringBody();
+        } else if (b == '{' || b == '[') {
+            skipContainer();
+        } else if (isNumberStart(b)) {
+            pos++;
+            skipNumberRest();
+        } else if (b == 't' || b == 'f' || b == 'n') {
+            while (pos < in.length && in[pos] >= 'a' && in[pos] <= 'z') {
+                pos++;
+            }
+        } else {
+            throw malformed();
+        }
+    }
+    
+    /**
+     * Skip a whole object or array by tracking nesting depth, without recursing into it
+     */
+    private void skipContainer() throws IOException {
+        int depth = 0;
+        do {
+            byte b = in[pos++];
+            if (b == '"') {
+                skipStringBody();
+            } else if (b == '{' || b == '[') {
+                depth++;
+            } else if (b == '}' || b == ']') {
+                depth--;
+            }
+        } while (depth > 0);
+    }
+    
+    /**
+     * Skip past the closing quote of a string whose opening quote was already consumed
+     */
+    private void skipStringBody() {
+        while (true) {
+            byte b = in[pos++];
+            if (b == '"') {
+                return;
+            }
+            if (b == '\\') {
+                pos++;
+            }
+        }
+    }
+    
+    private void skipNumberRest() {
+        while (pos < in.length) {
+            byte b = in[pos];
+            if ((b >= '0' && b <= '9') || b == '.' || b == 'e' || b == 'E' || b == '+' || b == '-') {
+                pos++;
+            } else {
+                return;
+            }
+        }
+    }
+    
+    private static boolean isNumberStart(byte b) {
+        return (b >= '0' && b <= '9') || b == '-';
+    }
+    
+    private byte peek() {
+        return in[skipWhitespace()];
+    }
+    
+    private void expect(char c) throws IOException {
+        if (in[skipWhitespace()] != c) {
+            throw malformed();
+        }
+        pos++;
+    }
+    
+    private int skipWhitespace() {
+        while (pos < in.length && (in[pos] == ' ' || in[pos] == '\n' || in[pos] == '\r' || in[pos] == '\t')) {
+            pos++;
+        }
+        return pos;
+    }
+    
+    private IOException malformed() {
+        return new IOException("Malformed status response at byte " + pos);
+    }
+    
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
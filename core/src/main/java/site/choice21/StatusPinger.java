@@ -0,0 +1,367 @@
+package site.choice21;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Non-blocking Minecraft server list pinger
+ * A single selector thread runs every connect, handshake, status request and response read,
+ * so any number of targets can be pinged concurrently without tying up pool threads.
+ */
+public final class StatusPinger implements AutoCloseable {
+    private static final int WRITE_BUFFER_SIZE = 512;
+    private static final int READ_BUFFER_SIZE = 16 * 1024;
+    // A status response is a single string of at most 32767 characters
+    private static final int MAX_RESPONSE_BYTES = 32767 * 4;
+    private static final int PROTOCOL_VERSION = 4;
+    
+    private final Selector selector;
+    private final Thread thread;
+    private final Queue<Connection> pending = new ConcurrentLinkedQueue<>();
+    private volatile boolean running = true;
+    
+    // Only touched by the selector thread
+    private final List<Connection> active = new ArrayList<>();
+    private final ArrayDeque<ByteBuffer> writeBuffers = new ArrayDeque<>();
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+    
+    public StatusPinger(String threadName) throws IOException {
+        this.selector = Selector.open();
+        this.thread = new Thread(this::run, threadName);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+    
+    /**
+     * Ping a server and read its status
+     * @param address The server address, which should already be resolved
+     * @param timeoutMillis Time allowed for the whole exchange, connect included
+     * @return A future completed with the server's status, or failed on error or timeout
+     */
+    public CompletableFuture<ServerStatus> ping(InetSocketAddress address, int timeoutMillis) {
+        CompletableFuture<ServerStatus> future = new CompletableFuture<>();
+        if (!running) {
+            future.completeExceptionally(new IOException("Pinger is closed"));
+            return future;
+        }
+        pending.add(new Connection(address, future, System.nanoTime() + timeoutMillis * 1_000_000L));
+        selector.wakeup();
+        return future;
+    }
+    
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+    }
+    
+    private void run() {
+        try {
+            while (running) {
+                selector.select(selectTimeoutMillis());
+                registerPending();
+                
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    Connection connection = (Connection) key.attachment();
+                    try {
+                        handle(connection, key);
+                    } catch (IOException | RuntimeException e) {
+                        finish(connection, e);
+                    }
+                }
+                
+                expireTimedOut();
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            // Fall through and fail whatever is still in flight
+        } finally {
+            IOException closed = new IOException("Pinger is closed");
+            for (Connection connection : new ArrayList<>(active)) {
+                finish(connection, closed);
+            }
+            Connection connection;
+            while ((connection = pending.poll()) != null) {
+                connection.future.completeExceptionally(closed);
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                // Ignore
+            }
+        }
+    }
+    
+    private long selectTimeoutMillis() {
+        if (active.isEmpty()) {
+            return 0;
+        }
+        long nearest = Long.MAX_VALUE;
+        for (Connection connection : active) {
+            nearest = Math.min(nearest, connection.deadline);
+        }
+        // select(0) blocks forever, so never ask for less than a millisecond
+        return Math.max(1, (nearest - System.nanoTime()) / 1_000_000L + 1);
+    }
+    
+    private void registerPending() {
+        Connection connection;
+        while ((connection = pending.poll()) != null) {
+            try {
+                connection.channel = SocketChannel.open();
+                connection.channel.configureBlocking(false);
+                active.add(connection);
+                if (connection.channel.connect(connection.address)) {
+                    startWriting(connection, connection.channel.register(selector, 0, connection));
+                } else {
+                    connection.channel.register(selector, SelectionKey.OP_CONNECT, connection);
+                }
+            } catch (IOException | RuntimeException e) {
+                finish(connection, e);
+            }
+        }
+    }
+    
+    private void handle(Connection connection, SelectionKey key) throws IOException {
+        if (!key.isValid()) {
+            return;
+        }
+        if (key.isConnectable()) {
+            if (connection.channel.finishConnect()) {
+                startWriting(connection, key);
+            }
+        } else if (key.isWritable()) {
+            connection.channel.write(connection.out);
+            if (!connection.out.hasRemaining()) {
+                releaseWriteBuffer(connection);
+                connection.requestSent = System.nanoTime();
+                key.interestOps(SelectionKey.OP_READ);
+            }
+        } else if (key.isReadable()) {
+            readBuffer.clear();
+            int read = connection.channel.read(readBuffer);
+            if (read == -1) {
+                throw new EOFException("Connection closed before a status response was received");
+            }
+            readBuffer.flip();
+            connection.consume(readBuffer);
+            if (connection.isComplete()) {
+                finish(connection, null);
+            }
+        }
+    }
+    
+    private void startWriting(Connection connection, SelectionKey key) throws IOException {
+        connection.out = acquireWriteBuffer();
+        writeHandshake(connection.out, connection.address);
+        connection.out.flip();
+        connection.channel.write(connection.out);
+        if (connection.out.hasRemaining()) {
+            key.interestOps(SelectionKey.OP_WRITE);
+        } else {
+            releaseWriteBuffer(connection);
+            connection.requestSent = System.nanoTime();
+            key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+    
+    private void expireTimedOut() {
+        if (active.isEmpty()) {
+            return;
+        }
+        long now = System.nanoTime();
+        for (int i = active.size() - 1; i >= 0; i--) {
+            Connection connection = active.get(i);
+            if (now - connection.deadline >= 0) {
+                finish(connection, new TimeoutException("Timed out pinging " + connection.address));
+            }
+        }
+    }
+    
+    private void finish(Connection connection, Throwable error) {
+        active.remove(connection);
+        releaseWriteBuffer(connection);
+        if (connection.channel != null) {
+            try {
+                connection.channel.close();
+            } catch (IOException e) {
+                // Ignore
+            }
+        }
+        if (error != null) {
+            connection.future.completeExceptionally(error);
+            return;
+        }
+        // Time from sending the status request to reading the whole response
+        int latencyMillis = (int) ((System.nanoTime() - connection.requestSent) / 1_000_000L);
+        try {
+            connection.future.complete(StatusJsonScanner.scan(connection.body, latencyMillis));
+        } catch (IOException | RuntimeException e) {
+            connection.future.completeExceptionally(e);
+        }
+    }
+    
+    private ByteBuffer acquireWriteBuffer() {
+        ByteBuffer buffer = writeBuffers.poll();
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+        }
+        buffer.clear();
+        return buffer;
+    }
+    
+    private void releaseWriteBuffer(Connection connection) {
+        if (connection.out != null) {
+            writeBuffers.push(connection.out);
+            connection.out = null;
+        }
+    }
+    
+    private static void writeHandshake(ByteBuffer out, InetSocketAddress address) {
+        byte[] host = address.getHostString().getBytes(StandardCharsets.UTF_8);
+        // Packet ID + protocol version + host + port + next state
+        int handshakeLength = 1 + varIntSize(PROTOCOL_VERSION) + varIntSize(host.length) + host.length + 2 + 1;
+        writeVarInt(out, handshakeLength);
+        out.put((byte) 0x00);
+        writeVarInt(out, PROTOCOL_VERSION);
+        writeVarInt(out, host.length);
+        out.put(host);
+        out.putShort((short) address.getPort());
+        writeVarInt(out, 1);
+        
+        // Status request: length 1, packet ID 0
+        out.put((byte) 0x01);
+        out.put((byte) 0x00);
+    }
+    
+    private static void writeVarInt(ByteBuffer out, int value) {
+        while ((value & 0xFFFFFF80) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+    
+    private static int varIntSize(int value) {
+        int size = 1;
+        while ((value & 0xFFFFFF80) != 0) {
+            size++;
+            value >>>= 7;
+        }
+        return size;
+    }
+    
+    /**
+     * Decodes a VarInt one byte at a time, so it can resume across partial reads
+     */
+    static final class VarIntDecoder {
+        private int value;
+        private int position;
+        
+        /**
+         * @param b The next byte
+         * @return true once the last byte of the VarInt has been consumed
+         */
+        boolean feed(byte b) throws IOException {
+            value |= (b & 0x7F) << (position * 7);
+            position++;
+            if ((b & 0x80) == 0) {
+                return true;
+            }
+            if (position >= 5) {
+                throw new IOException("VarInt too long");
+            }
+            return false;
+        }
+        
+        int value() {
+            return value;
+        }
+        
+        void reset() {
+            value = 0;
+            position = 0;
+        }
+    }
+    
+    private static final class Connection {
+        private static final int PACKET_LENGTH = 0;
+        private static final int PACKET_ID = 1;
+        private static final int STRING_LENGTH = 2;
+        private static final int BODY = 3;
+        private static final int DONE = 4;
+        
+        final InetSocketAddress address;
+        final CompletableFuture<ServerStatus> future;
+        final long deadline;
+        SocketChannel channel;
+        ByteBuffer out;
+        long requestSent;
+        
+        private final VarIntDecoder varInt = new VarIntDecoder();
+        private int state = PACKET_LENGTH;
+        private byte[] body;
+        private int bodyPosition;
+        
+        Connection(InetSocketAddress address, CompletableFuture<ServerStatus> future, long deadline) {
+            this.address = address;
+            this.future = future;
+            this.deadline = deadline;
+        }
+        
+        void consume(ByteBuffer in) throws IOException {
+            while (in.hasRemaining() && state != DONE) {
+                if (state == BODY) {
+                    int length = Math.min(in.remaining(), body.length - bodyPosition);
+                    in.get(body, bodyPosition, length);
+                    bodyPosition += length;
+                    if (bodyPosition == body.length) {
+                        state = DONE;
+                    }
+                    continue;
+                }
+                
+                if (!varInt.feed(in.get())) {
+                    continue;
+                }
+                int value = varInt.value();
+                varInt.reset();
+                if (state == PACKET_LENGTH) {
+                    state = PACKET_ID;
+                } else if (state == PACKET_ID) {
+                    if (value != 0x00) {
+                        throw new IOException("Unexpected packet ID " + value);
+                    }
+                    state = STRING_LENGTH;
+                } else {
+                    if (value < 0 || value > MAX_RESPONSE_BYTES) {
+                        throw new IOException("Invalid status response length " + value);
+                    }
+                    body = new byte[value];
+                    state = value == 0 ? DONE : BODY;
+                }
+            }
+        }
+        
+        boolean isComplete() {
+            return state == DONE;
+        }
+    }
+}
@@ -0,0 +1,522 @@
+package site.choice21;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Small TOML parser covering what config.toml needs
+ * Supports tables, arrays of tables, dotted keys, basic and literal strings (including multi-line),
+ * integers, floats, booleans, arrays and inline tables. Dates and times are not supported.
+ * Tables become LinkedHashMaps, integers Longs and floats Doubles.
+ */
+final class TomlParser {
+    private final String input;
+    private int pos;
+    // Tables opened by a [header] or [[header]], which can't be opened again
+    private final Set<Map<String, Object>> definedTables = Collections.newSetFromMap(new IdentityHashMap<>());
+    
+    private TomlParser(String input) {
+        this.input = input;
+    }
+    
+    /**
+     * Parse a TOML document
+     * @param input The document text
+     * @return The root table
+     * @throws IOException If the document is not valid TOML
+     */
+    static Map<String, Object> parse(String input) throws IOException {
+        return new TomlParser(input).parseDocument();
+    }
+    
+    private Map<String, Object> parseDocument() throws IOException {
+        Map<String, Object> root = new LinkedHashMap<>();
+        Map<String, Object> current = root;
+        
+        // Skip a UTF-8 byte order mark if the file was saved with one
+        if (input.startsWith("\uFEFF")) {
+            pos = 1;
+        }
+        
+        while (true) {
+            skipBlankLines();
+            if (atEnd()) {
+                return root;
+            }
+            
+            if (peek() == '[') {
+                if (lookingAt("[[")) {
+                    pos += 2;
+                    List<String> key = parseKey();
+                    expect("]]");
+                    current = appendArrayTable(root, key);
+                } else {
+                    pos++;
+                    List<String> key = parseKey();
+                    expect("]");
+                    current = table(root, key, key.size());
+                    if (!definedTables.add(current)) {
+                        throw error("Duplicate table '" + String.join(".", key) + "'");
+                    }
+                }
+            } else {
+                parseKeyValue(current);
+            }
+            expectLineEnd();
+        }
+    }
+    
+    private void parseKeyValue(Map<String, Object> target) throws IOException {
+        List<String> key = parseKey();
+        skipSpaces();
+        expect("=");
+        skipSpaces();
+        Object value = parseValue();
+        
+        Map<String, Object> table = table(target, key, key.size() - 1);
+        String name = key.get(key.size() - 1);
+        if (table.containsKey(name)) {
+            throw error("Duplicate key '" + String.join(".", key) + "'");
+        }
+        table.put(name, value);
+    }
+    
+    private List<String> parseKey() throws IOException {
+        List<String> parts = new ArrayList<>();
+        skipSpaces();
+        parts.add(parseSimpleKey());
+        skipSpaces();
+        while (!atEnd() && peek() == '.') {
+            pos++;
+            skipSpaces();
+            parts.add(parseSimpleKey());
+            skipSpaces();
+        }
+        return parts;
+    }
+    
+    private String parseSimpleKey() throws IOException {
+        if (atEnd()) {
+            throw error("Expected a key");
+        }
+        char c = peek();
+        if (c == '"') {
+            return parseBasicString();
+        }
+        if (c == '\'') {
+            return parseLiteralString();
+        }
+        
+        int start = pos;
+        while (!atEnd() && isBareKeyChar(peek())) {
+            pos++;
+        }
+        if (start == pos) {
+            throw error("Expected a key but found '" + c + "'");
+        }
+        return input.substring(start, pos);
+    }
+    
+    private Object parseValue() throws IOException {
+        if (atEnd()) {
+            throw error("Expected a value");
+        }
+        char c = peek();
+        if (c == '"') {
+            return lookingAt("\"\"\"") ? parseMultiLineBasicString() : parseBasicString();
+        }
+        if (c == '\'') {
+            return lookingAt("'''") ? parseMultiLineLiteralString() : parseLiteralString();
+        }
+        if (c == '[') {
+            return parseArray();
+        }
+        if (c == '{') {
+            return parseInlineTable();
+        }
+        if (lookingAt("true")) {
+            pos += 4;
+            return Boolean.TRUE;
+        }
+        if (lookingAt("false")) {
+            pos += 5;
+            return Boolean.FALSE;
+        }
+        return parseNumber();
+    }
+    
+    private List<Object> parseArray() throws IOException {
+        pos++;
+        List<Object> values = new ArrayList<>();
+        while (true) {
+            skipBlankLines();
+            if (atEnd()) {
+                throw error("Unterminated array");
+            }
+            if (peek() == ']') {
+                pos++;
+                return values;
+            }
+            values.add(parseValue());
+            skipBlankLines();
+            if (atEnd()) {
+                throw error("Unterminated array");
+            }
+            if (peek() == ',') {
+                pos++;
+            } else if (peek() != ']') {
+                throw error("Expected ',' or ']' in array");
+            }
+        }
+    }
+    
+    private Map<String, Object> parseInlineTable() throws IOException {
+        pos++;
+        Map<String, Object> table = new LinkedHashMap<>();
+        skipSpaces();
+        if (!atEnd() && peek() == '}') {
+            pos++;
+            return table;
+        }
+        while (true) {
+            parseKeyValue(table);
+            skipSpaces();
+            if (atEnd()) {
+                throw error("Unterminated inline table");
+            }
+            char c = peek();
+            pos++;
+            if (c == '}') {
+                return table;
+            }
+            if (c != ',') {
+                throw error("Expected ',' or '}' in inline table");
+            }
+            skipSpaces();
+        }
+    }
+    
+    private Object parseNumber() throws IOException {
+        int start = pos;
+        while (!atEnd() && isNumberChar(peek())) {
+            pos++;
+        }
+        String token = input.substring(start, pos);
+        if (token.isEmpty()) {
+            throw error("Expected a value but found '" + peek() + "'");
+        }
+        
+        String digits = token.replace("_", "");
+        try {
+            if (digits.startsWith("0x")) {
+                return Long.parseLong(digits.substring(2), 16);
+            }
+            if (digits.startsWith("0o")) {
+                return Long.parseLong(digits.substring(2), 8);
+            }
+            if (digits.startsWith("0b")) {
+                return Long.parseLong(digits.substring(2), 2);
+            }
+            switch (digits) {
+                case "inf":
+                case "+inf":
+                    return Double.POSITIVE_INFINITY;
+                case "-inf":
+                    return Double.NEGATIVE_INFINITY;
+                case "nan":
+                case "+nan":
+                case "-nan":
+                    return Double.NaN;
+                default:
+                    break;
+            }
+            if (digits.indexOf('.') >= 0 || digits.indexOf('e') >= 0 || digits.indexOf('E') >= 0) {
+                return Double.parseDouble(digits);
+            }
+            return Long.parseLong(digits);
+        } catch (NumberFormatException e) {
+            throw error("Invalid value '" + token + "'");
+        }
+    }
+    
+    private String parseBasicString() throws IOException {
+        pos++;
+        StringBuilder result = new StringBuilder();
+        while (true) {
+            if (atEnd() || peek() == '\n') {
+                throw error("Unterminated string");
+            }
+            char c = input.charAt(pos++);
+            if (c == '"') {
+                return result.toString();
+            }
+            if (c == '\\') {
+                appendEscape(result);
+            } else {
+                result.append(c);
+            }
+        }
+    }
+    
+    private String parseMultiLineBasicString() throws IOException {
+        pos += 3;
+        skipNewline();
+        StringBuilder result = new StringBuilder();
+        while (true) {
+            if (atEnd()) {
+                throw error("Unterminated string");
+            }
+            if (lookingAt("\"\"\"")) {
+                pos += 3;
+                // Up to two quotes directly before the delimiter belong to the string
+                for (int i = 0; i < 2 && !atEnd() && peek() == '"'; i++) {
+                    result.append('"');
+                    pos++;
+                }
+                return result.toString();
+            }
+            char c = input.charAt(pos++);
+            if (c != '\\') {
+                result.append(c);
+                continue;
+            }
+            
+            // A backslash at the end of a line trims the line break and leading whitespace
+            int next = pos;
+            while (next < input.length() && (input.charAt(next) == ' ' || input.charAt(next) == '\t')) {
+                next++;
+            }
+            if (next < input.length() && (input.charAt(next) == '\n' || input.charAt(next) == '\r')) {
+                pos = next;
+                while (!atEnd() && Character.isWhitespace(peek())) {
+                    pos++;
+                }
+            } else {
+                appendEscape(result);
+            }
+        }
+    }
+    
+    private String parseLiteralString() throws IOException {
+        pos++;
+        int end = input.indexOf('\'', pos);
+        int newline = input.indexOf('\n', pos);
+        if (end == -1 || (newline != -1 && newline < end)) {
+            throw error("Unterminated string");
+        }
+        String value = input.substring(pos, end);
+        pos = end + 1;
+        return value;
+    }
+    
+    private String parseMultiLineLiteralString() throws IOException {
+        pos += 3;
+        skipNewline();
+        int end = input.indexOf("'''", pos);
+        if (end == -1) {
+            throw error("Unterminated string");
+        }
+        // Up to two quotes directly before the delimiter belong to the string
+        for (int i = 0; i < 2 && end + 3 < input.length() && input.charAt(end + 3) == '\''; i++) {
+            end++;
+        }
+        String value = input.substring(pos, end);
+        pos = end + 3;
+        return value;
+    }
+    
+    private void appendEscape(StringBuilder result) throws IOException {
+        if (atEnd()) {
+            throw error("Unterminated string");
+        }
+        char c = input.charAt(pos++);
+        switch (c) {
+            case 'b':
+                result.append('\b');
+                break;
+            case 't':
+                result.append('\t');
+                break;
+            case 'n':
+                result.append('\n');
+                break;
+            case 'f':
+                result.append('\f');
+                break;
+            case 'r':
+                result.append('\r');
+                break;
+            case 'e':
+                result.append('\u001B');
+                break;
+            case '"':
+                result.append('"');
+                break;
+            case '\\':
+                result.append('\\');
+                break;
+            case 'u':
+                result.appendCodePoint(parseHex(4));
+                break;
+            case 'U':
+                result.appendCodePoint(parseHex(8));
+                break;
+            default:
+                throw error("Invalid escape sequence '\\" + c + "'");
+        }
+    }
+    
+    private int parseHex(int length) throws IOException {
+        if (pos + length > input.length()) {
+            throw error("Invalid unicode escape");
+        }
+        try {
+            int codePoint = Integer.parseInt(input.substring(pos, pos + length), 16);
+            if (!Character.isValidCodePoint(codePoint)) {
+                throw error("Invalid unicode escape");
+            }
+            pos += length;
+            return codePoint;
+        } catch (NumberFormatException e) {
+            throw error("Invalid unicode escape");
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> table(Map<String, Object> base, List<String> key, int depth) throws IOException {
+        Map<String, Object> table = base;
+        for (int i = 0; i < depth; i++) {
+            String part = key.get(i);
+            Object existing = table.get(part);
+            if (existing == null) {
+                Map<String, Object> created = new LinkedHashMap<>();
+                table.put(part, created);
+                table = created;
+            } else if (existing instanceof Map) {
+                table = (Map<String, Object>) existing;
+            } else if (existing instanceof List && !((List<?>) existing).isEmpty()
+                    && ((List<?>) existing).get(((List<?>) existing).size() - 1) instanceof Map) {
+                List<Object> tables = (List<Object>) existing;
+                table = (Map<String, Object>) tables.get(tables.size() - 1);
+            } else {
+                throw error("Key '" + String.join(".", key.subList(0, i + 1)) + "' is not a table");
+            }
+        }
+        return table;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> appendArrayTable(Map<String, Object> root, List<String> key) throws IOException {
+        Map<String, Object> parent = table(root, key, key.size() - 1);
+        String name = key.get(key.size() - 1);
+        Object existing = parent.get(name);
+        List<Object> tables;
+        if (existing == null) {
+            tables = new ArrayList<>();
+            parent.put(name, tables);
+        } else if (existing instanceof List) {
+            tables = (List<Object>) existing;
+        } else {
+            throw error("Key '" + String.join(".", key) + "' is not an array of tables");
+        }
+        Map<String, Object> table = new LinkedHashMap<>();
+        tables.add(table);
+        definedTables.add(table);
+        return table;
+    }
+    
+    private void expect(String token) throws IOException {
+        skipSpaces();
+        if (!lookingAt(token)) {
+            throw error("Expected '" + token + "'");
+        }
+        pos += token.length();
+    }
+    
+    private void expectLineEnd() throws IOException {
+        skipSpaces();
+        if (atEnd()) {
+            return;
+        }
+        if (peek() == '#') {
+            skipComment();
+        }
+        if (!atEnd() && !skipNewline()) {
+            throw error("Expected end of line but found '" + peek() + "'");
+        }
+    }
+    
+    private void skipBlankLines() {
+        while (!atEnd()) {
+            char c = peek();
+            if (c == ' ' || c == '\t' || c == '\r' || c == '\n') {
+                pos++;
+            } else if (c == '#') {
+                skipComment();
+            } else {
+                return;
+            }
+        }
+    }
+    
+    private void skipSpaces() {
+        while (!atEnd() && (peek() == ' ' || peek() == '\t')) {
+            pos++;
+        }
+    }
+    
+    private void skipComment() {
+        while (!atEnd() && peek() != '\n') {
+            pos++;
+        }
+    }
+    
+    private boolean skipNewline() {
+        if (lookingAt("\r\n")) {
+            pos += 2;
+            return true;
+        }
+        if (!atEnd() && peek() == '\n') {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+    
+    private boolean lookingAt(String token) {
+        return input.startsWith(token, pos);
+    }
+    
+    private boolean atEnd() {
+        return pos >= input.length();
+    }
+    
+    private char peek() {
+        return input.charAt(pos);
+    }
+    
+    private static boolean isBareKeyChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_' || c == '-';
+    }
+    
+    private static boolean isNumberChar(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')
+                || c == '_' || c == '+' || c == '-' || c == '.';
+    }
+    
+    private IOException error(String message) {
+        int line = 1;
+        for (int i = 0; i < Math.min(pos, input.length()); i++) {
+            if (input.charAt(i) == '\n') {
+                line++;
+            }
+        }
+        return new IOException("Invalid TOML on line " + line + ": " + message);
+    }
+}
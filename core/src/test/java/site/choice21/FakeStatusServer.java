@@ -0,0 +1,140 @@
+package site.choice21;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A status endpoint on localhost that answers every ping with a scripted reply
+ * Each connection is read up to the end of the status request and then handed to the reply on its own thread.
+ */
+final class FakeStatusServer implements AutoCloseable {
+    /**
+     * Writes whatever the test wants the pinger to see
+     */
+    interface Reply {
+        void write(SocketChannel client) throws IOException, InterruptedException;
+    }
+    
+    private final ServerSocketChannel listener;
+    private final Reply reply;
+    private final Thread thread;
+    private final List<SocketChannel> clients = new ArrayList<>();
+    
+    FakeStatusServer(Reply reply) throws IOException {
+        this.listener = ServerSocketChannel.open();
+        this.listener.bind(new InetSocketAddress("127.0.0.1", 0));
+        this.reply = reply;
+        this.thread = new Thread(this::run, "Fake status server");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+    
+    InetSocketAddress getAddress() throws IOException {
+        return (InetSocketAddress) listener.getLocalAddress();
+    }
+    
+    private void run() {
+        while (listener.isOpen()) {
+            SocketChannel client;
+            try {
+                client = listener.accept();
+            } catch (IOException e) {
+                return;
+            }
+            synchronized (clients) {
+                clients.add(client);
+            }
+            Thread handler = new Thread(() -> {
+                try {
+                    readRequest(client);
+                    reply.write(client);
+                } catch (IOException | InterruptedException e) {
+                    // The pinger hung up first
+                }
+            }, "Fake status client");
+            handler.setDaemon(true);
+            handler.start();
+        }
+    }
+    
+    /**
+     * Skip the handshake packet and the empty status request that follows it
+     */
+    private static void readRequest(SocketChannel client) throws IOException {
+        int handshakeLength = readVarInt(client);
+        readFully(client, handshakeLength);
+        readFully(client, 2);
+    }
+    
+    private static int readVarInt(SocketChannel client) throws IOException {
+        int value = 0;
+        for (int position = 0; position < 5; position++) {
+            byte b = readFully(client, 1).get();
+            value |= (b & 0x7F) << (position * 7);
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("VarInt too long");
+    }
+    
+    private static ByteBuffer readFully(SocketChannel client, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (client.read(buffer) == -1) {
+                throw new IOException("Pinger closed the connection");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+    
+    /**
+     * @param json The status JSON
+     * @return A complete status response packet
+     */
+    static byte[] response(String json) {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer content = ByteBuffer.allocate(body.length + 6);
+        content.put((byte) 0x00);
+        putVarInt(content, body.length);
+        content.put(body);
+        content.flip();
+        ByteBuffer packet = ByteBuffer.allocate(content.remaining() + 5);
+        putVarInt(packet, content.remaining());
+        packet.put(content);
+        return Arrays.copyOf(packet.array(), packet.position());
+    }
+    
+    static void putVarInt(ByteBuffer out, int value) {
+        while ((value & 0xFFFFFF80) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+    
+    static void write(SocketChannel client, byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            client.write(buffer);
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        listener.close();
+        synchronized (clients) {
+            for (SocketChannel client : clients) {
+                client.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package site.choice21;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FederationTest {
+    private static final long INTERVAL_MILLIS = 50;
+    private static final long EXPIRY_MILLIS = 400;
+    
+    private final List<AutoCloseable> open = new ArrayList<>();
+    
+    @AfterEach
+    void closeAll() throws Exception {
+        for (AutoCloseable closeable : open) {
+            closeable.close();
+        }
+    }
+    
+    @Test
+    void mergesDeltasFromSeveralPeers() throws Exception {
+        InetSocketAddress a = freeAddress();
+        InetSocketAddress b = freeAddress();
+        InetSocketAddress c = freeAddress();
+        Map<String, Integer> countsA = new ConcurrentHashMap<>(Map.of("lobby", 1));
+        Map<String, Integer> countsB = new ConcurrentHashMap<>(Map.of("lobby", 2, "pvp", 5));
+        Map<String, Integer> countsC = new ConcurrentHashMap<>(Map.of("lobby", 3));
+        Federation federationA = start(a, List.of(b, c), countsA);
+        Federation federationB = start(b, List.of(a, c), countsB);
+        start(c, List.of(a, b), countsC);
+        
+        await(() -> federationA.getPeerCount("lobby") == 5 && federationA.getPeerCount("pvp") == 5);
+        await(() -> federationB.getPeerCount("lobby") == 4);
+        assertEquals(0, federationB.getPeerCount("pvp"));
+        
+        countsB.put("lobby", 10);
+        countsC.put("lobby", 0);
+        await(() -> federationA.getPeerCount("lobby") == 10);
+        await(() -> federationB.getPeerCount("lobby") == 1);
+    }
+    
+    @Test
+    void requestsFullSetAfterGapOrLayoutChange() throws Exception {
+        InetSocketAddress local = freeAddress();
+        DatagramChannel peer = openPeer();
+        Federation federation = start(local, List.of((InetSocketAddress) peer.getLocalAddress()), new ConcurrentHashMap<>());
+        
+        peer.send(message(Federation.FULL, 7, 1, "lobby", 4), local);
+        await(() -> federation.getPeerCount("lobby") == 4);
+        
+        // Sequence 2 was lost, so 3 can't be applied
+        peer.send(delta(7, 3, 0, 9), local);
+        assertNotNull(awaitResync(peer));
+        assertEquals(4, federation.getPeerCount("lobby"));
+        
+        peer.send(message(Federation.FULL, 7, 3, "lobby", 9), local);
+        await(() -> federation.getPeerCount("lobby") == 9);
+        peer.send(delta(7, 4, 0, 11), local);
+        await(() -> federation.getPeerCount("lobby") == 11);
+        
+        // A delta against a layout the proxy hasn't seen is ignored until the new full set arrives
+        peer.send(delta(8, 5, 0, 20), local);
+        assertNotNull(awaitResync(peer));
+        assertEquals(11, federation.getPeerCount("lobby"));
+        peer.send(message(Federation.FULL, 8, 5, "survival", 20), local);
+        await(() -> federation.getPeerCount("survival") == 20 && federation.getPeerCount("lobby") == 0);
+    }
+    
+    @Test
+    void expiresSilentPeers() throws Exception {
+        InetSocketAddress a = freeAddress();
+        InetSocketAddress b = freeAddress();
+        Federation federationA = start(a, List.of(b), new ConcurrentHashMap<>());
+        Federation federationB = start(b, List.of(a), new ConcurrentHashMap<>(Map.of("lobby", 6)));
+        await(() -> federationA.getPeerCount("lobby") == 6);
+        
+        federationB.close();
+        long closed = System.nanoTime();
+        await(() -> federationA.getPeerCount("lobby") == 0);
+        assertTrue(System.nanoTime() - closed >= TimeUnit.MILLISECONDS.toNanos(EXPIRY_MILLIS - INTERVAL_MILLIS));
+    }
+    
+    @Test
+    void ignoresAddressesNotInPeerList() throws Exception {
+        InetSocketAddress local = freeAddress();
+        DatagramChannel listed = openPeer();
+        DatagramChannel stranger = openPeer();
+        Federation federation = start(local, List.of((InetSocketAddress) listed.getLocalAddress()), new ConcurrentHashMap<>());
+        
+        stranger.send(message(Federation.FULL, 1, 1, "spoofed", 50), local);
+        listed.send(message(Federation.FULL, 1, 1, "lobby", 2), local);
+        await(() -> federation.getPeerCount("lobby") == 2);
+        assertEquals(0, federation.getPeerCount("spoofed"));
+        assertEquals(2, federation.getPeerPlayers());
+    }
+    
+    private Federation start(InetSocketAddress bind, List<InetSocketAddress> peers, Map<String, Integer> counts) throws IOException {
+        Federation federation = new Federation(bind, peers, INTERVAL_MILLIS, EXPIRY_MILLIS, () -> Map.copyOf(counts),
+                () -> counts.values().stream().mapToInt(Integer::intValue).sum(), changed -> { }, new SilentLogger(),
+                "Test federation " + bind.getPort());
+        open.add(federation);
+        return federation;
+    }
+    
+    private DatagramChannel openPeer() throws IOException {
+        DatagramChannel channel = DatagramChannel.open();
+        channel.bind(new InetSocketAddress("127.0.0.1", 0));
+        open.add(channel);
+        return channel;
+    }
+    
+    private static InetSocketAddress freeAddress() throws IOException {
+        try (DatagramChannel probe = DatagramChannel.open()) {
+            probe.bind(new InetSocketAddress("127.0.0.1", 0));
+            return (InetSocketAddress) probe.getLocalAddress();
+        }
+    }
+    
+    /**
+     * A message from a fake peer with node id 42, a FULL with one backend or a DELTA for position 0
+     */
+    private static ByteBuffer message(byte type, int layout, int sequence, String name, int count) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        CountSync.writeVarInt(body, nameBytes.length);
+        body.write(nameBytes, 0, nameBytes.length);
+        CountSync.writeVarInt(body, count);
+        return withHeader(type, layout, sequence, count, body);
+    }
+    
+    private static ByteBuffer delta(int layout, int sequence, int position, int count) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        CountSync.writeVarInt(body, position);
+        CountSync.writeVarInt(body, count);
+        return withHeader(Federation.DELTA, layout, sequence, count, body);
+    }
+    
+    private static ByteBuffer withHeader(byte type, int layout, int sequence, int players, ByteArrayOutputStream body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(ByteBuffer.allocate(18).put(Federation.VERSION).put(type).putLong(42).putInt(layout).putInt(sequence).array());
+        CountSync.writeVarInt(out, players);
+        CountSync.writeVarInt(out, 1);
+        out.writeBytes(body.toByteArray());
+        return ByteBuffer.wrap(out.toByteArray());
+    }
+    
+    /**
+     * Read datagrams until a resync request arrives, skipping the proxy's regular messages
+     * @return The request, or null if none arrived in time
+     */
+    private static ByteBuffer awaitResync(DatagramChannel peer) throws IOException, InterruptedException {
+        peer.configureBlocking(false);
+        ByteBuffer buffer = ByteBuffer.allocate(65507);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            buffer.clear();
+            if (peer.receive(buffer) == null) {
+                Thread.sleep(5);
+                continue;
+            }
+            buffer.flip();
+            if (buffer.get(0) == Federation.VERSION && buffer.get(1) == Federation.RESYNC) {
+                return buffer;
+            }
+        }
+        return null;
+    }
+    
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for federation");
+            Thread.sleep(10);
+        }
+    }
+    
+    private static final class SilentLogger implements PluginLogger {
+        @Override
+        public void info(String message) {
+        }
+        
+        @Override
+        public void warn(String message) {
+        }
+        
+        @Override
+        public void error(String message) {
+        }
+        
+        @Override
+        public void error(String message, Throwable throwable) {
+        }
+    }
+}
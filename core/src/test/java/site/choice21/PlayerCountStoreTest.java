@@ -0,0 +1,82 @@
+package site.choice21;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class PlayerCountStoreTest {
+    @Test
+    void copyCarriesCountsOverAndSumsTotal() {
+        PlayerCountStore previous = new PlayerCountStore(List.of("lobby", "pvp"));
+        previous.set("lobby", 4);
+        previous.setStatus(previous.slotOf("pvp"), new ServerStatus(6, 50, "1.20.4", 765, 12));
+        
+        PlayerCountStore next = new PlayerCountStore(List.of("pvp", "survival"));
+        next.copyCountsFrom(previous);
+        assertEquals(6, next.get("pvp"));
+        assertEquals(50, next.getMax(next.slotOf("pvp")));
+        assertEquals("1.20.4", next.getVersion(next.slotOf("pvp")));
+        assertEquals(0, next.get("survival"));
+        assertEquals(6, next.get(PlayerCountStore.TOTAL));
+    }
+    
+    @Test
+    void copySkipsSlotsAlreadyWritten() {
+        PlayerCountStore previous = new PlayerCountStore(List.of("lobby", "pvp"));
+        previous.set("lobby", 4);
+        previous.set("pvp", 6);
+        
+        PlayerCountStore next = new PlayerCountStore(List.of("lobby", "pvp"));
+        next.set("lobby", 9);
+        next.copyCountsFrom(previous);
+        assertEquals(9, next.get("lobby"));
+        assertEquals(6, next.get("pvp"));
+        assertEquals(15, next.get(PlayerCountStore.TOTAL));
+    }
+    
+    @Test
+    void handOffPassesLaterWritesOn() {
+        PlayerCountStore previous = new PlayerCountStore(List.of("lobby", "pvp"));
+        previous.set("lobby", 4);
+        PlayerCountStore next = new PlayerCountStore(List.of("lobby", "survival"));
+        previous.handOffTo(next);
+        
+        // Writers that still hold the old store after it was replaced
+        previous.set("lobby", 7);
+        previous.setOffline(previous.slotOf("pvp"));
+        previous.set("hub", 3);
+        next.copyCountsFrom(previous);
+        
+        assertEquals(7, next.get("lobby"));
+        assertFalse(next.isStale(next.slotOf("lobby")));
+        assertEquals(0, next.get("pvp"));
+        assertEquals(3, next.get("hub"));
+        assertEquals(7, next.get(PlayerCountStore.TOTAL));
+        
+        previous.setStatus(previous.slotOf("lobby"), new ServerStatus(11, 100, null, -1, 5));
+        assertEquals(11, next.get("lobby"));
+        assertEquals(100, next.getMax(next.slotOf("lobby")));
+    }
+    
+    @Test
+    void handOffKeepsEveryWriteUnderConcurrency() throws InterruptedException {
+        for (int round = 0; round < 50; round++) {
+            PlayerCountStore previous = new PlayerCountStore(List.of("lobby"));
+            previous.set("lobby", 1);
+            PlayerCountStore next = new PlayerCountStore(List.of("lobby"));
+            Thread writer = new Thread(() -> {
+                for (int count = 2; count <= 500; count++) {
+                    previous.set("lobby", count);
+                }
+            });
+            writer.start();
+            previous.handOffTo(next);
+            next.copyCountsFrom(previous);
+            writer.join();
+            assertEquals(500, next.get("lobby"));
+        }
+    }
+}
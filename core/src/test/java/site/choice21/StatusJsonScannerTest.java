@@ -0,0 +1,79 @@
+package site.choice21;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StatusJsonScannerTest {
+    private static ServerStatus scan(String json) throws IOException {
+        return StatusJsonScanner.scan(json.getBytes(StandardCharsets.UTF_8), 7);
+    }
+    
+    @Test
+    void readsPlayersAndVersion() throws IOException {
+        ServerStatus status = scan("{\"version\":{\"name\":\"Paper 1.20.4\",\"protocol\":765},"
+                + "\"players\":{\"max\":500,\"online\":123,\"sample\":[]},\"description\":\"Hi\"}");
+        assertEquals(123, status.getOnline());
+        assertEquals(500, status.getMax());
+        assertEquals("Paper 1.20.4", status.getVersion());
+        assertEquals(765, status.getProtocol());
+        assertEquals(7, status.getLatencyMillis());
+    }
+    
+    @Test
+    void ignoresPlayersNestedInMotd() throws IOException {
+        ServerStatus status = scan("{\"description\":{\"text\":\"players\",\"extra\":[{\"players\":{\"online\":999,\"max\":999}}]},"
+                + "\"modinfo\":{\"version\":{\"name\":\"fake\"}},"
+                + "\"players\":{\"max\":20,\"online\":3}}");
+        assertEquals(3, status.getOnline());
+        assertEquals(20, status.getMax());
+        assertNull(status.getVersion());
+        assertEquals(-1, status.getProtocol());
+    }
+    
+    @Test
+    void handlesEscapedStrings() throws IOException {
+        ServerStatus status = scan("{\"description\":\"say \\\"players\\\":{\\\"online\\\":5} \\\\\","
+                + "\"version\":{\"name\":\"Paper \\\"1.20\\\" caf\\u00e9\\\\\\/\"},"
+                + "\"players\":{\"online\":4}}");
+        assertEquals(4, status.getOnline());
+        assertEquals("Paper \"1.20\" café\\/", status.getVersion());
+    }
+    
+    @Test
+    void readsFractionsAndExponents() throws IOException {
+        assertEquals(12, scan("{\"players\":{\"online\":12.0}}").getOnline());
+        assertEquals(100, scan("{\"players\":{\"online\":1.0e2}}").getOnline());
+        assertEquals(15, scan("{\"players\":{\"online\":1.5E+1}}").getOnline());
+        assertEquals(2, scan("{\"players\":{\"online\":250e-2}}").getOnline());
+        assertEquals(Integer.MAX_VALUE, scan("{\"players\":{\"online\":1e30}}").getOnline());
+        assertEquals(Integer.MAX_VALUE, scan("{\"players\":{\"online\":99999999999999}}").getOnline());
+    }
+    
+    @Test
+    void rejectsTruncatedResponses() {
+        assertThrows(IOException.class, () -> scan("{\"players\":{\"online\":12"));
+        assertThrows(IOException.class, () -> scan("{\"players\":{\"onl"));
+        assertThrows(IOException.class, () -> scan("{\"description\":\"unterminated"));
+        assertThrows(IOException.class, () -> scan("{\"description\":{\"extra\":[{\"text\":\"x\"}"));
+        assertThrows(IOException.class, () -> scan(""));
+    }
+    
+    @Test
+    void rejectsTrailingCommas() {
+        assertThrows(IOException.class, () -> scan("{\"players\":{\"online\":1,}}"));
+        assertThrows(IOException.class, () -> scan("{\"players\":{\"online\":1},}"));
+    }
+    
+    @Test
+    void requiresOnlineCount() {
+        IOException error = assertThrows(IOException.class, () -> scan("{\"players\":{\"max\":20}}"));
+        assertEquals("Status response has no players.online", error.getMessage());
+        assertThrows(IOException.class, () -> scan("{}"));
+    }
+}
@@ -0,0 +1,139 @@
+package site.choice21;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StatusPingerTest {
+    private static final String STATUS = "{\"version\":{\"name\":\"1.20.4\",\"protocol\":765},"
+            + "\"players\":{\"max\":100,\"online\":42},\"description\":\"A server\"}";
+    
+    private StatusPinger pinger;
+    private FakeStatusServer server;
+    
+    @BeforeEach
+    void openPinger() throws IOException {
+        pinger = new StatusPinger("Test pinger");
+    }
+    
+    @AfterEach
+    void closeAll() throws IOException {
+        pinger.close();
+        if (server != null) {
+            server.close();
+        }
+    }
+    
+    private ServerStatus ping(FakeStatusServer.Reply reply, int timeoutMillis) throws Throwable {
+        server = new FakeStatusServer(reply);
+        try {
+            return pinger.ping(server.getAddress(), timeoutMillis).get(10, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        }
+    }
+    
+    @Test
+    void readsNormalReply() throws Throwable {
+        ServerStatus status = ping(client -> FakeStatusServer.write(client, FakeStatusServer.response(STATUS)), 2000);
+        assertEquals(42, status.getOnline());
+        assertEquals(100, status.getMax());
+        assertEquals("1.20.4", status.getVersion());
+        assertEquals(765, status.getProtocol());
+    }
+    
+    @Test
+    void readsReplySplitAcrossReads() throws Throwable {
+        byte[] response = FakeStatusServer.response(STATUS);
+        ServerStatus status = ping(client -> {
+            // Byte by byte through the framing, then the body in uneven chunks
+            for (int i = 0; i < response.length; ) {
+                int length = i < 6 ? 1 : Math.min(17, response.length - i);
+                FakeStatusServer.write(client, Arrays.copyOfRange(response, i, i + length));
+                i += length;
+                Thread.sleep(5);
+            }
+        }, 5000);
+        assertEquals(42, status.getOnline());
+        assertEquals(100, status.getMax());
+    }
+    
+    @Test
+    void rejectsVarIntThatIsTooLong() {
+        byte[] tooLong = { (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF };
+        IOException error = assertThrows(IOException.class, () -> ping(client -> FakeStatusServer.write(client, tooLong), 2000));
+        assertEquals("VarInt too long", error.getMessage());
+    }
+    
+    @Test
+    void rejectsDeclaredLengthAboveLimit() {
+        ByteBuffer header = ByteBuffer.allocate(16);
+        FakeStatusServer.putVarInt(header, 200_000);
+        header.put((byte) 0x00);
+        FakeStatusServer.putVarInt(header, 32767 * 4 + 1);
+        byte[] bytes = Arrays.copyOf(header.array(), header.position());
+        IOException error = assertThrows(IOException.class, () -> ping(client -> FakeStatusServer.write(client, bytes), 2000));
+        assertTrue(error.getMessage().startsWith("Invalid status response length"), error.getMessage());
+    }
+    
+    @Test
+    void failsOnEofMidBody() {
+        byte[] response = FakeStatusServer.response(STATUS);
+        byte[] truncated = Arrays.copyOf(response, response.length / 2);
+        assertThrows(EOFException.class, () -> ping(client -> {
+            FakeStatusServer.write(client, truncated);
+            client.close();
+        }, 2000));
+    }
+    
+    @Test
+    void timesOutSlowLoris() {
+        byte[] response = FakeStatusServer.response(STATUS);
+        long start = System.nanoTime();
+        assertThrows(TimeoutException.class, () -> ping(client -> {
+            // One byte every 50ms would take far longer than the timeout
+            for (byte b : response) {
+                FakeStatusServer.write(client, new byte[] { b });
+                Thread.sleep(50);
+            }
+        }, 300));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+    }
+    
+    @Test
+    void closeFailsInFlightPings() throws Exception {
+        CountDownLatch requested = new CountDownLatch(1);
+        server = new FakeStatusServer(client -> {
+            requested.countDown();
+            Thread.sleep(60_000);
+        });
+        CompletableFuture<ServerStatus> future = pinger.ping(server.getAddress(), 60_000);
+        assertTrue(requested.await(5, TimeUnit.SECONDS));
+        assertFalse(future.isDone());
+        
+        pinger.close();
+        ExecutionException error = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IOException.class, error.getCause());
+        assertEquals("Pinger is closed", error.getCause().getMessage());
+        
+        ExecutionException afterClose = assertThrows(ExecutionException.class,
+                () -> pinger.ping(server.getAddress(), 1000).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IOException.class, afterClose.getCause());
+    }
+}
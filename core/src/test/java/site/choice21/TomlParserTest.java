@@ -0,0 +1,156 @@
+package site.choice21;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TomlParserTest {
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> table(Map<String, Object> parent, String key) {
+        return (Map<String, Object>) parent.get(key);
+    }
+    
+    private static IOException invalid(String toml) {
+        return assertThrows(IOException.class, () -> TomlParser.parse(toml));
+    }
+    
+    @Test
+    void keepsCommentCharactersInsideStrings() throws IOException {
+        Map<String, Object> root = TomlParser.parse("# leading comment\n"
+                + "basic = \"a # b\" # trailing comment\n"
+                + "literal = 'c:\\path # d'\n"
+                + "quote = \"say \\\"#\\\" \\u00e9\"\n");
+        assertEquals("a # b", root.get("basic"));
+        assertEquals("c:\\path # d", root.get("literal"));
+        assertEquals("say \"#\" é", root.get("quote"));
+        assertEquals(3, root.size());
+    }
+    
+    @Test
+    void readsMultiLineStrings() throws IOException {
+        Map<String, Object> root = TomlParser.parse("basic = \"\"\"\n"
+                + "first\n"
+                + "second # not a comment\"\"\"\n"
+                + "trimmed = \"\"\"one \\\n"
+                + "      two\"\"\"\n"
+                + "literal = '''\n"
+                + "raw \\n ''quoted'''''\n");
+        assertEquals("first\nsecond # not a comment", root.get("basic"));
+        assertEquals("one two", root.get("trimmed"));
+        assertEquals("raw \\n ''quoted''", root.get("literal"));
+    }
+    
+    @Test
+    void readsInlineTablesAndArrays() throws IOException {
+        Map<String, Object> root = TomlParser.parse("aliases = { hub = \"lobby\", \"pvp.arena\" = 'pvp', nested = { on = true } }\n"
+                + "groups = [\n"
+                + "  \"lobby\", # first\n"
+                + "  \"pvp\",\n"
+                + "]\n"
+                + "empty = {}\n");
+        Map<String, Object> aliases = table(root, "aliases");
+        assertEquals("lobby", aliases.get("hub"));
+        assertEquals("pvp", aliases.get("pvp.arena"));
+        assertEquals(Boolean.TRUE, table(aliases, "nested").get("on"));
+        assertEquals(List.of("lobby", "pvp"), root.get("groups"));
+        assertTrue(table(root, "empty").isEmpty());
+        
+        invalid("a = { b = 1, b = 2 }\n");
+        invalid("a = { b = 1\n");
+        invalid("a = [1, 2\n");
+    }
+    
+    @Test
+    void readsDottedKeysAndTables() throws IOException {
+        Map<String, Object> root = TomlParser.parse("servers.lobby = \"lobby-1\"\n"
+                + "servers . \"pvp\" = 'pvp-1'\n"
+                + "[settings.cache]\n"
+                + "ttl = 5\n"
+                + "[settings]\n"
+                + "name = \"x\"\n"
+                + "[[peers]]\n"
+                + "port = 1\n"
+                + "[[peers]]\n"
+                + "port = 2\n");
+        Map<String, Object> servers = table(root, "servers");
+        assertEquals("lobby-1", servers.get("lobby"));
+        assertEquals("pvp-1", servers.get("pvp"));
+        assertEquals(5L, table(table(root, "settings"), "cache").get("ttl"));
+        assertEquals("x", table(root, "settings").get("name"));
+        assertEquals(List.of(Map.of("port", 1L), Map.of("port", 2L)), root.get("peers"));
+        
+        invalid("a = 1\na.b = 2\n");
+    }
+    
+    @Test
+    void readsCrlfDocuments() throws IOException {
+        Map<String, Object> root = TomlParser.parse("\uFEFF# comment\r\n"
+                + "[servers]\r\n"
+                + "lobby = \"lobby\" # trailing\r\n"
+                + "\r\n"
+                + "text = '''\r\n"
+                + "line'''\r\n"
+                + "list = [\r\n"
+                + "  1,\r\n"
+                + "  2\r\n"
+                + "]\r\n");
+        Map<String, Object> servers = table(root, "servers");
+        assertEquals("lobby", servers.get("lobby"));
+        assertEquals("line", servers.get("text"));
+        assertEquals(List.of(1L, 2L), servers.get("list"));
+    }
+    
+    @Test
+    void readsNumbers() throws IOException {
+        Map<String, Object> root = TomlParser.parse("a = 1_000\nb = -17\nc = 0xff\nd = 0o17\ne = 0b101\n"
+                + "f = 1.5e3\ng = -inf\nh = 9223372036854775807\n");
+        assertEquals(1000L, root.get("a"));
+        assertEquals(-17L, root.get("b"));
+        assertEquals(255L, root.get("c"));
+        assertEquals(15L, root.get("d"));
+        assertEquals(5L, root.get("e"));
+        assertEquals(1500.0, root.get("f"));
+        assertEquals(Double.NEGATIVE_INFINITY, root.get("g"));
+        assertEquals(Long.MAX_VALUE, root.get("h"));
+    }
+    
+    @Test
+    void rejectsOverflow() {
+        IOException error = invalid("a = 1\nport = 9223372036854775808\n");
+        assertEquals("Invalid TOML on line 2: Invalid value '9223372036854775808'", error.getMessage());
+        invalid("a = 0x10000000000000000\n");
+        invalid("a = -9223372036854775809\n");
+    }
+    
+    @Test
+    void rejectsDuplicateKeys() {
+        IOException error = invalid("port = 1\nport = 2\n");
+        assertEquals("Invalid TOML on line 2: Duplicate key 'port'", error.getMessage());
+        invalid("a.b = 1\na.b = 2\n");
+        invalid("[servers]\nlobby = \"a\"\n\"lobby\" = \"b\"\n");
+    }
+    
+    @Test
+    void rejectsDuplicateTables() {
+        IOException error = invalid("[servers]\nlobby = \"lobby\"\n\n[servers]\npvp = \"pvp\"\n");
+        assertEquals("Invalid TOML on line 4: Duplicate table 'servers'", error.getMessage());
+        invalid("[a.b]\n[a.b]\n");
+        invalid("[[peers]]\n[peers]\n");
+        invalid("[a]\nb = 1\n[a.b]\n");
+    }
+    
+    @Test
+    void rejectsMalformedLines() {
+        invalid("a = \"unterminated\n");
+        invalid("a = 1 b = 2\n");
+        invalid("a = \"\\q\"\n");
+        invalid("[a\n");
+        invalid("= 1\n");
+    }
+}
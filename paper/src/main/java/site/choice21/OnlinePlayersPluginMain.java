@@ -15,18 +15,18 @@ public class OnlinePlayersPluginMain extends JavaPlugin {
         plugin = new PaperPlaceholders(this);
         plugin.onEnable();
         
-        // Register PlaceholderAPI expansion if available
+        // Register PlaceholderAPI expansion if available, its classes are only loaded past this check
         if (getServer().getPluginManager().getPlugin("PlaceholderAPI") != null) {
             try {
-                papiExpansion = PlaceholderAPIExpansion.create(plugin);
-                if (papiExpansion != null && PlaceholderAPIExpansion.register(papiExpansion)) {
+                papiExpansion = PlaceholderAPIExpansion.register(plugin);
+                if (papiExpansion != null) {
                     getLogger().info("PlaceholderAPI expansion registered successfully!");
                 } else {
                     getLogger().warning("Failed to register PlaceholderAPI expansion!");
                 }
-            } catch (Exception e) {
-                getLogger().warning("Failed to load PlaceholderAPI expansion: " + e.getMessage());
-                getLogger().info("PlaceholderAPI not found. Placeholders will only work via API.");
+            } catch (RuntimeException | LinkageError e) {
+                // An incompatible PlaceholderAPI version shows up as a LinkageError
+                getLogger().warning("Failed to load PlaceholderAPI expansion: " + e);
             }
         } else {
             getLogger().info("PlaceholderAPI not found. Placeholders will only work via API.");
@@ -38,7 +38,7 @@ public class OnlinePlayersPluginMain extends JavaPlugin {
         if (papiExpansion != null) {
             try {
                 PlaceholderAPIExpansion.unregister(papiExpansion);
-            } catch (Exception e) {
+            } catch (RuntimeException | LinkageError e) {
                 // Ignore
             }
         }
@@ -0,0 +1,357 @@
+package site.choice21;
+
+import org.bukkit.Bukkit;
+import org.bukkit.command.PluginCommand;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.plugin.messaging.Messenger;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Paper/Spigot implementation of the plugin
+ */
+public class PaperPlaceholders extends AbstractOnlinePlayersPlugin implements Listener {
+    
+    private final JavaPlugin plugin;
+    private final PaperLogger logger;
+    private final Path dataDirectory;
+    private PollScheduler pollScheduler;
+    private PingCoordinator<ServerStatus> pingCoordinator;
+    // Polled name -> every configured name with the same target, which all get its result
+    private volatile Map<String, List<String>> pollGroups = Map.of();
+    private StatusPinger pinger;
+    private AddressCache addressCache;
+    // Configured name -> parsed address, for servers that are pinged
+    private volatile Map<String, ServerEndpoint> endpoints = Map.of();
+    private final CountSync.Receiver countReceiver = new CountSync.Receiver();
+    private BungeeCordCounts bungeeCounts;
+    // Players on this server, kept by join and quit events so it never has to be read off the main thread
+    private final AtomicInteger localPlayers = new AtomicInteger();
+    // This server's player limit, read on the main thread on enable and with each join or quit
+    private volatile int localMaxPlayers;
+    // Configured names showing this server's own count
+    private volatile List<String> localServers = List.of();
+    
+    public PaperPlaceholders(JavaPlugin plugin) {
+        this.plugin = plugin;
+        this.logger = new PaperLogger(plugin.getLogger());
+        this.dataDirectory = plugin.getDataFolder().toPath();
+    }
+    
+    public void onEnable() {
+        logger.info("PaperPlaceholders is starting up...");
+        
+        // Load configuration
+        loadConfig();
+        
+        try {
+            pinger = new StatusPinger("VelocityPlaceholders Pinger");
+        } catch (IOException e) {
+            logger.error("Failed to start server pinger", e);
+            return;
+        }
+        addressCache = new AddressCache(getConfig().getDnsTtl(), getConfig().getDnsNegativeTtl(), "VelocityPlaceholders Resolver");
+        refreshEndpoints(getConfig());
+        
+        // Seed the local count once, on the main thread, then follow joins and quits
+        localPlayers.set(Bukkit.getOnlinePlayers().size());
+        localMaxPlayers = Bukkit.getMaxPlayers();
+        refreshLocalServers(getConfig());
+        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+        
+        // Requests queued in one tick go out together on the next, over whichever player is online
+        bungeeCounts = new BungeeCordCounts(task -> Bukkit.getScheduler().runTask(plugin, task), this::sendBungeeMessage);
+        
+        // Start updating player counts periodically
+        startPlayerCountUpdater();
+        
+        Messenger messenger = plugin.getServer().getMessenger();
+        messenger.registerOutgoingPluginChannel(plugin, CountSync.CHANNEL);
+        messenger.registerIncomingPluginChannel(plugin, CountSync.CHANNEL, this::onCountsMessage);
+        messenger.registerOutgoingPluginChannel(plugin, BungeeCordCounts.CHANNEL);
+        messenger.registerIncomingPluginChannel(plugin, BungeeCordCounts.CHANNEL,
+                (channel, player, message) -> bungeeCounts.handle(message));
+        
+        PluginCommand command = plugin.getCommand("vplaceholders");
+        if (command != null) {
+            command.setExecutor((sender, cmd, label, args) -> {
+                for (String line : executeCommand(args)) {
+                    sender.sendMessage(line);
+                }
+                return true;
+            });
+            command.setTabCompleter((sender, cmd, label, args) -> suggestCommand(args));
+        }
+        
+        // Apply config.toml changes without a restart
+        startConfigWatcher();
+        startMetricsEndpoint();
+        startHistory();
+        
+        long snapshotTicks = getConfig().getSnapshotInterval() * 20L;
+        if (snapshotTicks > 0) {
+            Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::saveSnapshot, snapshotTicks, snapshotTicks);
+        }
+        
+        logger.info("PaperPlaceholders has been enabled!");
+    }
+    
+    public void onDisable() {
+        logger.info("PaperPlaceholders is shutting down...");
+        stopConfigWatcher();
+        stopMetricsEndpoint();
+        stopHistory();
+        if (pollScheduler != null) {
+            pollScheduler.close();
+        }
+        if (pinger != null) {
+            pinger.close();
+        }
+        if (addressCache != null) {
+            addressCache.close();
+        }
+        if (bungeeCounts != null) {
+            bungeeCounts.close();
+        }
+        saveSnapshot();
+    }
+    
+    private void startPlayerCountUpdater() {
+        PluginConfig config = getConfig();
+        pingCoordinator = new PingCoordinator<>(config.getMaxConcurrentPings());
+        pollScheduler = new PollScheduler(this::pollServer, metrics, "VelocityPlaceholders Poller");
+        refreshPolledServers(config);
+    }
+    
+    @Override
+    protected void onConfigReloaded(PluginConfig previous, PluginConfig current) {
+        refreshLocalServers(current);
+        if (addressCache != null) {
+            addressCache.setTtl(current.getDnsTtl(), current.getDnsNegativeTtl());
+            refreshEndpoints(current);
+        }
+        if (pollScheduler != null) {
+            pingCoordinator.setMaxConcurrent(current.getMaxConcurrentPings());
+            refreshPolledServers(current);
+        }
+    }
+    
+    /**
+     * Poll each target once, for all the names that share it
+     */
+    private void refreshPolledServers(PluginConfig config) {
+        Map<String, ServerEndpoint> parsed = endpoints;
+        pollGroups = groupByTarget(polledServers(config), serverName -> {
+            ServerSettings settings = config.getServer(serverName);
+            if (isBungeeServer(settings)) {
+                return "bungee:" + settings.getId().toLowerCase(Locale.ROOT);
+            }
+            ServerEndpoint endpoint = parsed.get(serverName);
+            return endpoint != null ? endpoint.toString() : "invalid:" + serverName;
+        });
+        pollScheduler.setServers(pollSettings(config, pollGroups.keySet()));
+    }
+    
+    /**
+     * The local server is counted from events, and with proxy_push on only servers explicitly
+     * set to ping are pinged, the proxy sends the rest
+     */
+    private static List<String> polledServers(PluginConfig config) {
+        List<String> polled = new ArrayList<>();
+        for (ServerSettings settings : config.getServerSettings()) {
+            if (!settings.isCurrentServer() && (!config.isProxyPush() || !CountSync.isPushed(settings))) {
+                polled.add(settings.getName());
+            }
+        }
+        return polled;
+    }
+    
+    /**
+     * Parse the address of every pinged server once, and resolve them ahead of the first poll
+     */
+    private void refreshEndpoints(PluginConfig config) {
+        Map<String, ServerEndpoint> parsed = new HashMap<>();
+        for (ServerSettings settings : config.getServerSettings()) {
+            if (settings.isCurrentServer() || isBungeeServer(settings)) {
+                continue;
+            }
+            ServerEndpoint endpoint = ServerEndpoint.parse(settings.getId());
+            if (endpoint == null) {
+                logger.warn("Server '" + settings.getName() + "' has an invalid address: " + settings.getId());
+                continue;
+            }
+            parsed.put(settings.getName(), endpoint);
+            addressCache.resolve(endpoint);
+        }
+        endpoints = parsed;
+        addressCache.retain(parsed.values());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        localMaxPlayers = Bukkit.getMaxPlayers();
+        publishLocalCount(localPlayers.incrementAndGet());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        localMaxPlayers = Bukkit.getMaxPlayers();
+        publishLocalCount(localPlayers.decrementAndGet());
+    }
+    
+    private void refreshLocalServers(PluginConfig config) {
+        List<String> names = new ArrayList<>();
+        for (ServerSettings settings : config.getServerSettings()) {
+            if (settings.isCurrentServer()) {
+                names.add(settings.getName());
+            }
+        }
+        localServers = names;
+        publishLocalCount(localPlayers.get());
+    }
+    
+    /**
+     * Store this server's count for every name showing it, safe to call from any thread
+     */
+    private void publishLocalCount(int count) {
+        ServerStatus status = new ServerStatus(Math.max(0, count), localMaxPlayers, null, -1, 0);
+        for (String serverName : localServers) {
+            setServerStatus(serverName, status);
+        }
+    }
+    
+    private void onCountsMessage(String channel, Player player, byte[] message) {
+        if (!getConfig().isProxyPush()) {
+            return;
+        }
+        if (countReceiver.apply(message, getCountStore())) {
+            player.sendPluginMessage(plugin, CountSync.CHANNEL, CountSync.resyncRequest());
+        }
+    }
+    
+    private CompletableFuture<Integer> pollServer(String serverName) {
+        PluginConfig config = getConfig();
+        ServerSettings settings = config.getServer(serverName);
+        if (settings == null) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Unknown server " + serverName));
+        }
+        List<String> serverNames = pollGroups.getOrDefault(serverName, List.of(serverName));
+        
+        long timeoutMillis = pingTimeoutMillis(config, serverName);
+        if (isBungeeServer(settings)) {
+            return bungeeCounts.request(settings.getId(), timeoutMillis).thenApply(count -> {
+                for (String name : serverNames) {
+                    setPlayerCount(name, count);
+                }
+                return count;
+            });
+        }
+        
+        // Try to ping the server
+        return pingServer(serverName, serverNames, timeoutMillis);
+    }
+    
+    /**
+     * An id without a port is a server name on the proxy, unless the server is explicitly set to ping
+     */
+    private static boolean isBungeeServer(ServerSettings settings) {
+        return settings.getSource() != ServerSettings.Source.PING && settings.getId().indexOf(':') < 0;
+    }
+    
+    /**
+     * Runs on the main thread, so the online player list can be read directly
+     */
+    private boolean sendBungeeMessage(byte[] message) {
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            player.sendPluginMessage(plugin, BungeeCordCounts.CHANNEL, message);
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Ping through the coordinator, which caps pings in flight and never pings an address twice at once,
+     * and store the result for every name that shows the server
+     */
+    private CompletableFuture<Integer> pingServer(String serverName, List<String> serverNames, long timeoutMillis) {
+        ServerEndpoint endpoint = endpoints.get(serverName);
+        if (endpoint == null) {
+            for (String name : serverNames) {
+                setServerOffline(name);
+            }
+            return CompletableFuture.failedFuture(new IllegalArgumentException("No valid address for server " + serverName));
+        }
+        
+        // Cached addresses come back completed, so DNS never blocks the poll thread
+        return pingCoordinator.submit(endpoint.toString(), timeoutMillis,
+                () -> addressCache.resolve(endpoint).thenCompose(address -> pinger.ping(address, (int) timeoutMillis)))
+                .handle((status, throwable) -> {
+                    if (throwable != null) {
+                        Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+                        String reason = cause instanceof TimeoutException ? "No response within " + timeoutMillis + " ms" : cause.getMessage();
+                        logger.warn("Failed to ping server " + endpoint + ": " + reason);
+                        for (String name : serverNames) {
+                            setServerOffline(name);
+                        }
+                        throw new CompletionException(cause);
+                    }
+                    for (String name : serverNames) {
+                        setServerStatus(name, status);
+                    }
+                    return status.getOnline();
+                });
+    }
+    
+    @Override
+    protected PluginLogger getPluginLogger() {
+        return logger;
+    }
+    
+    @Override
+    public Path getDataDirectory() {
+        return dataDirectory;
+    }
+    
+    @Override
+    public Object getLogger() {
+        return plugin.getLogger();
+    }
+    
+    /**
+     * Get the placeholder value for a server
+     * @param placeholder The placeholder string (e.g., "online_modernprac")
+     * @return The player count as string, or "0" if not found
+     */
+    public String getPlaceholder(String placeholder) {
+        if (placeholder.startsWith("online_")) {
+            String serverName = placeholder.substring("online_".length());
+            return String.valueOf(getPlayerCount(serverName));
+        }
+        return "0";
+    }
+    
+    /**
+     * Get the placeholder manager for replacing placeholders in strings
+     * @return The PlaceholderManager instance
+     */
+    public PlaceholderManager getPlaceholderManager() {
+        return placeholderManager;
+    }
+}
+
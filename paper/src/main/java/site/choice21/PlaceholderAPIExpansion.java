@@ -0,0 +1,28 @@
+package site.choice21;
+
+/**
+ * PlaceholderAPI expansion for Paper/Spigot
+ * The expansion is linked directly, but only this class refers to it, so neither it nor PlaceholderAPI's
+ * classes are loaded until the main class calls in here after finding PlaceholderAPI installed.
+ */
+final class PlaceholderAPIExpansion {
+    private PlaceholderAPIExpansion() {
+    }
+    
+    /**
+     * Create and register the expansion
+     * @param plugin The plugin the expansion reads counts from
+     * @return The registered expansion, or null if PlaceholderAPI refused it
+     */
+    static Object register(PaperPlaceholders plugin) {
+        PlaceholderAPIExpansionImpl expansion = new PlaceholderAPIExpansionImpl(plugin);
+        return expansion.register() ? expansion : null;
+    }
+    
+    /**
+     * @param expansion An expansion returned by {@link #register(PaperPlaceholders)}
+     */
+    static void unregister(Object expansion) {
+        ((PlaceholderAPIExpansionImpl) expansion).unregister();
+    }
+}
@@ -0,0 +1,128 @@
+package site.choice21;
+
+import me.clip.placeholderapi.expansion.PlaceholderExpansion;
+import org.bukkit.OfflinePlayer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * PlaceholderAPI expansion implementation for Paper/Spigot
+ * This class is only loaded if PlaceholderAPI is present
+ */
+public class PlaceholderAPIExpansionImpl extends PlaceholderExpansion {
+    
+    private static final String ONLINE_PREFIX = "online_";
+    // Indexed by kind, the low two bits of a lookup entry
+    private static final String[] PREFIXES = { ONLINE_PREFIX, "max_", "ping_", "status_" };
+    private static final int ONLINE = 0;
+    private static final int MAX = 1;
+    private static final int PING = 2;
+    
+    private final AbstractOnlinePlayersPlugin plugin;
+    // Maps full params like "online_lobby" straight to a slot and kind, rebuilt when the store changes
+    private volatile ParamsLookup lookup;
+    
+    public PlaceholderAPIExpansionImpl(AbstractOnlinePlayersPlugin plugin) {
+        this.plugin = plugin;
+    }
+    
+    @Override
+    public @NotNull String getIdentifier() {
+        return "onlineplayers";
+    }
+    
+    @Override
+    public @NotNull String getAuthor() {
+        return "choice21";
+    }
+    
+    @Override
+    public @NotNull String getVersion() {
+        return "1.1.0";
+    }
+    
+    @Override
+    public boolean persist() {
+        return true;
+    }
+    
+    @Override
+    public @Nullable String onRequest(OfflinePlayer player, @NotNull String params) {
+        plugin.getMetrics().countPlaceholderRequest();
+        
+        // Handle %onlineplayers_online_<server>%
+        PlayerCountStore store = plugin.getCountStore();
+        ParamsLookup current = lookup;
+        if (current == null || current.store != store) {
+            current = new ParamsLookup(store);
+            lookup = current;
+        }
+        
+        int entry = current.index.get(params);
+        if (entry >= 0) {
+            int slot = entry >>> 2;
+            switch (entry & 3) {
+                case ONLINE:
+                    return store.getText(slot);
+                case MAX:
+                    return String.valueOf(store.getMax(slot));
+                case PING:
+                    return String.valueOf(store.getLatency(slot));
+                default:
+                    return store.getStateText(store.getState(slot));
+            }
+        }
+        
+        // %onlineplayers_online_peak_<server>_1h% and the other statistics
+        int stat = current.statIndex.get(params);
+        if (stat >= 0) {
+            return String.valueOf(plugin.getHistory().get(store.slotName(stat >>> 4), stat & 15));
+        }
+        
+        // Servers outside the configuration still resolve by name
+        if (params.startsWith(ONLINE_PREFIX)) {
+            String serverName = params.substring(ONLINE_PREFIX.length());
+            return String.valueOf(plugin.getPlayerCount(serverName));
+        }
+        
+        return null;
+    }
+    
+    private static final class ParamsLookup {
+        final PlayerCountStore store;
+        final SlotIndex index;
+        // "online_<type>_<name>_<window>" -> slot << 4 | statistic
+        final SlotIndex statIndex;
+        
+        ParamsLookup(PlayerCountStore store) {
+            this.store = store;
+            List<String> names = store.getLookupNames();
+            String[] params = new String[names.size() * PREFIXES.length];
+            int[] entries = new int[params.length];
+            int next = 0;
+            for (int kind = 0; kind < PREFIXES.length; kind++) {
+                for (String name : names) {
+                    params[next] = PREFIXES[kind] + name;
+                    entries[next++] = store.slotOf(name) << 2 | kind;
+                }
+            }
+            this.index = new SlotIndex(params, entries);
+            
+            List<String> statParams = new ArrayList<>();
+            List<Integer> statEntries = new ArrayList<>();
+            for (String name : names) {
+                for (int window = 0; window < CountHistory.WINDOWS.length; window++) {
+                    for (int type = 0; type < CountHistory.TYPES.length; type++) {
+                        statParams.add(ONLINE_PREFIX + CountHistory.TYPES[type] + "_" + name + "_" + CountHistory.WINDOWS[window]);
+                        statEntries.add(store.slotOf(name) << 4 | window * CountHistory.TYPES.length + type);
+                    }
+                }
+            }
+            this.statIndex = new SlotIndex(statParams.toArray(new String[0]), statEntries.stream().mapToInt(Integer::intValue).toArray());
+        }
+    }
+}
+
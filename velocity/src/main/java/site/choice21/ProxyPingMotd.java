@@ -0,0 +1,136 @@
+package site.choice21;
+
+import com.velocitypowered.api.proxy.server.ServerPing;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Server list MOTD, hover lines and player count for the proxy's ping responses, from config templates
+ * The templates are rendered on every ping. A render returns the same String instance while none of
+ * the counts it shows has changed, so the parsed components are only rebuilt when the rendered text
+ * differs, and a flood of pings mostly costs a few reference comparisons each.
+ */
+final class ProxyPingMotd {
+    private static final UUID SAMPLE_ID = new UUID(0, 0);
+    
+    // Null or empty where the proxy's own value is kept
+    private final PlaceholderTemplate description;
+    private final PlaceholderTemplate[] hover;
+    private final PlaceholderTemplate online;
+    private volatile Built built;
+    
+    private ProxyPingMotd(PlaceholderTemplate description, PlaceholderTemplate[] hover, PlaceholderTemplate online) {
+        this.description = description;
+        this.hover = hover;
+        this.online = online;
+    }
+    
+    /**
+     * @param config The configuration in effect
+     * @return The MOTD to serve, or null if none of motd, motd_hover and motd_online is set
+     */
+    static ProxyPingMotd from(PluginConfig config) {
+        String description = config.getMotd();
+        List<String> hover = config.getMotdHover();
+        String online = config.getMotdOnline();
+        if (description.isEmpty() && hover.isEmpty() && online.isEmpty()) {
+            return null;
+        }
+        PlaceholderTemplate[] hoverTemplates = new PlaceholderTemplate[hover.size()];
+        for (int i = 0; i < hoverTemplates.length; i++) {
+            hoverTemplates[i] = PlaceholderTemplate.compile(hover.get(i));
+        }
+        return new ProxyPingMotd(
+                description.isEmpty() ? null : PlaceholderTemplate.compile(description),
+                hoverTemplates,
+                online.isEmpty() ? null : PlaceholderTemplate.compile(online));
+    }
+    
+    /**
+     * Put the configured values into a ping response
+     * @param ping The response the proxy built
+     * @param store The store to read counts from
+     * @param history The history to read statistics from
+     * @return The response to send
+     */
+    ServerPing apply(ServerPing ping, PlayerCountStore store, CountHistory history) {
+        Built current = built;
+        String descriptionText = description != null ? description.render(store, history) : null;
+        String onlineText = online != null ? online.render(store, history) : null;
+        boolean stale = current == null || !same(current.descriptionText, descriptionText) || !same(current.onlineText, onlineText);
+        for (int i = 0; i < hover.length && !stale; i++) {
+            stale = !same(current.hoverTexts[i], hover[i].render(store, history));
+        }
+        if (stale) {
+            current = build(store, history);
+            built = current;
+        }
+        
+        ServerPing.Builder builder = ping.asBuilder();
+        if (current.description != null) {
+            builder.description(current.description);
+        }
+        if (current.samples.length > 0) {
+            builder.clearSamplePlayers().samplePlayers(current.samples);
+        }
+        if (current.online >= 0) {
+            builder.onlinePlayers(current.online);
+        }
+        return builder.build();
+    }
+    
+    private static boolean same(String built, String rendered) {
+        // Usually the same instance, equals covers names outside the configuration that are rendered afresh
+        return built == rendered || (built != null && built.equals(rendered));
+    }
+    
+    private Built build(PlayerCountStore store, CountHistory history) {
+        MiniMessage miniMessage = MiniMessage.miniMessage();
+        String descriptionText = description != null ? description.render(store, history) : null;
+        String onlineText = online != null ? online.render(store, history) : null;
+        String[] hoverTexts = new String[hover.length];
+        // The client shows sample names as legacy text, so hover lines are converted from MiniMessage
+        ServerPing.SamplePlayer[] samples = new ServerPing.SamplePlayer[hover.length];
+        for (int i = 0; i < hover.length; i++) {
+            hoverTexts[i] = hover[i].render(store, history);
+            String line = LegacyComponentSerializer.legacySection().serialize(miniMessage.deserialize(hoverTexts[i]));
+            samples[i] = new ServerPing.SamplePlayer(line, SAMPLE_ID);
+        }
+        int onlineCount = -1;
+        if (onlineText != null) {
+            try {
+                onlineCount = Math.max(0, Integer.parseInt(onlineText.trim()));
+            } catch (NumberFormatException e) {
+                // Not a number, the proxy's own count stays
+            }
+        }
+        return new Built(descriptionText, descriptionText != null ? miniMessage.deserialize(descriptionText) : null,
+                hoverTexts, samples, onlineText, onlineCount);
+    }
+    
+    /**
+     * Components built from one set of rendered strings
+     */
+    private static final class Built {
+        final String descriptionText;
+        final Component description;
+        final String[] hoverTexts;
+        final ServerPing.SamplePlayer[] samples;
+        final String onlineText;
+        final int online;
+        
+        Built(String descriptionText, Component description, String[] hoverTexts, ServerPing.SamplePlayer[] samples,
+              String onlineText, int online) {
+            this.descriptionText = descriptionText;
+            this.description = description;
+            this.hoverTexts = hoverTexts;
+            this.samples = samples;
+            this.onlineText = onlineText;
+            this.online = online;
+        }
+    }
+}
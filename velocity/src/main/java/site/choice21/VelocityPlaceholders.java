@@ -0,0 +1,647 @@
+package site.choice21;
+
+import com.google.inject.Inject;
+import com.velocitypowered.api.command.CommandManager;
+import com.velocitypowered.api.command.SimpleCommand;
+import com.velocitypowered.api.event.Subscribe;
+import com.velocitypowered.api.event.connection.DisconnectEvent;
+import com.velocitypowered.api.event.connection.PluginMessageEvent;
+import com.velocitypowered.api.event.player.ServerConnectedEvent;
+import com.velocitypowered.api.event.player.ServerPostConnectEvent;
+import com.velocitypowered.api.event.proxy.ProxyInitializeEvent;
+import com.velocitypowered.api.event.proxy.ProxyPingEvent;
+import com.velocitypowered.api.event.proxy.ProxyShutdownEvent;
+import com.velocitypowered.api.plugin.Plugin;
+import com.velocitypowered.api.plugin.annotation.DataDirectory;
+import com.velocitypowered.api.proxy.Player;
+import com.velocitypowered.api.proxy.ProxyServer;
+import com.velocitypowered.api.proxy.ServerConnection;
+import com.velocitypowered.api.proxy.messages.MinecraftChannelIdentifier;
+import com.velocitypowered.api.proxy.server.PingOptions;
+import com.velocitypowered.api.proxy.server.RegisteredServer;
+import com.velocitypowered.api.proxy.server.ServerInfo;
+import com.velocitypowered.api.proxy.server.ServerPing;
+import com.velocitypowered.api.scheduler.ScheduledTask;
+import net.kyori.adventure.text.Component;
+
+import java.net.InetSocketAddress;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+@Plugin(
+    id = "velocityplaceholders",
+    name = "VelocityPlaceholders",
+    version = "1.1.0",
+    description = "Provides placeholders for server player counts",
+    authors = {"choice21"}
+)
+public class VelocityPlaceholders extends AbstractOnlinePlayersPlugin {
+    
+    private final ProxyServer server;
+    private final org.slf4j.Logger slf4jLogger;
+    private final Path dataDirectory;
+    private final VelocityLogger logger;
+    
+    // Backend name (lower case) -> players this proxy has connected there, for event-counted servers
+    private final Map<String, AtomicInteger> backendCounts = new ConcurrentHashMap<>();
+    // Guards playerBackends, pendingBackends and changes to backendCounts, so a reconcile can't interleave with an event
+    private final Object backendLock = new Object();
+    private final Map<UUID, String> playerBackends = new HashMap<>();
+    // Player -> backend from a ServerConnectedEvent whose switch hasn't finished, getCurrentServer() still shows the old one
+    private final Map<UUID, String> pendingBackends = new HashMap<>();
+    // Backend name (lower case) -> configured names that display its count
+    private volatile Map<String, List<String>> namesByBackend = Map.of();
+    // Servers outside velocity.toml that are pinged directly by address, parsed when the sources are refreshed
+    private volatile Map<String, ServerEndpoint> fallbackEndpoints = Map.of();
+    // Raw servers for those endpoints, replaced when an endpoint resolves to a different address
+    private final Map<ServerEndpoint, RegisteredServer> fallbackServers = new ConcurrentHashMap<>();
+    private AddressCache addressCache;
+    private PollScheduler pollScheduler;
+    private PingCoordinator<ServerStatus> pingCoordinator;
+    // Polled name -> every configured name with the same server id, which all get its result
+    private volatile Map<String, List<String>> pollGroups = Map.of();
+    private ScheduledTask reconcileTask;
+    private ScheduledTask snapshotTask;
+    
+    private static final MinecraftChannelIdentifier COUNTS_CHANNEL = MinecraftChannelIdentifier.from(CountSync.CHANNEL);
+    private final CountSync.Sender countSender = new CountSync.Sender();
+    // Backend name (lower case) -> layout id of the last full state it received
+    private final Map<String, Integer> syncedLayouts = new ConcurrentHashMap<>();
+    private ScheduledTask pushTask;
+    // Shares event counts with the other proxies of a network, null unless federation_port is set
+    private volatile Federation federation;
+    // Server list response from motd, motd_hover and motd_online, null to leave pings alone
+    private volatile ProxyPingMotd motd;
+    
+    @Inject
+    public VelocityPlaceholders(ProxyServer server, org.slf4j.Logger logger, @DataDirectory Path dataDirectory) {
+        this.server = server;
+        this.slf4jLogger = logger;
+        this.dataDirectory = dataDirectory;
+        this.logger = new VelocityLogger(logger);
+    }
+    
+    @Subscribe
+    public void onProxyInitialization(ProxyInitializeEvent event) {
+        logger.info("VelocityPlaceholders is starting up...");
+        
+        // Load configuration
+        loadConfig();
+        motd = ProxyPingMotd.from(getConfig());
+        
+        // Start updating player counts periodically
+        startPlayerCountUpdater();
+        startFederation(getConfig());
+        
+        server.getChannelRegistrar().register(COUNTS_CHANNEL);
+        schedulePush(getConfig());
+        
+        CommandManager commandManager = server.getCommandManager();
+        commandManager.register(commandManager.metaBuilder("vplaceholders").plugin(this).build(), new StatsCommand());
+        
+        // Apply config.toml changes without a restart
+        startConfigWatcher();
+        startMetricsEndpoint();
+        startHistory();
+        
+        int snapshotInterval = getConfig().getSnapshotInterval();
+        if (snapshotInterval > 0) {
+            snapshotTask = server.getScheduler().buildTask(this, this::saveSnapshot)
+                    .repeat(snapshotInterval, TimeUnit.SECONDS)
+                    .schedule();
+        }
+        
+        logger.info("VelocityPlaceholders has been enabled!");
+    }
+    
+    @Subscribe
+    public void onProxyShutdown(ProxyShutdownEvent event) {
+        logger.info("VelocityPlaceholders is shutting down...");
+        stopConfigWatcher();
+        stopMetricsEndpoint();
+        stopHistory();
+        if (reconcileTask != null) {
+            reconcileTask.cancel();
+        }
+        if (snapshotTask != null) {
+            snapshotTask.cancel();
+        }
+        if (pushTask != null) {
+            pushTask.cancel();
+        }
+        if (pollScheduler != null) {
+            pollScheduler.close();
+        }
+        if (addressCache != null) {
+            addressCache.close();
+        }
+        stopFederation();
+        saveSnapshot();
+    }
+    
+    @Subscribe
+    public void onServerConnected(ServerConnectedEvent event) {
+        String backend = backendKey(event.getServer());
+        UUID player = event.getPlayer().getUniqueId();
+        String previous;
+        synchronized (backendLock) {
+            pendingBackends.put(player, backend);
+            previous = playerBackends.put(player, backend);
+            if (backend.equals(previous)) {
+                return;
+            }
+            if (previous != null) {
+                backendCount(previous).decrementAndGet();
+            }
+            backendCount(backend).incrementAndGet();
+        }
+        if (previous != null) {
+            publishBackendCount(previous);
+        }
+        publishBackendCount(backend);
+    }
+    
+    @Subscribe
+    public void onDisconnect(DisconnectEvent event) {
+        UUID player = event.getPlayer().getUniqueId();
+        String previous;
+        synchronized (backendLock) {
+            pendingBackends.remove(player);
+            previous = playerBackends.remove(player);
+            if (previous != null) {
+                backendCount(previous).decrementAndGet();
+            }
+        }
+        if (previous != null) {
+            publishBackendCount(previous);
+        }
+    }
+    
+    /**
+     * Rebuild the player map and the event counters together from the proxy's own connection lists,
+     * to correct any drift. Players still switching count at the backend their last event named.
+     */
+    private void reconcileBackendCounts() {
+        synchronized (backendLock) {
+            Map<UUID, String> backends = new HashMap<>();
+            Map<String, Integer> counts = new HashMap<>();
+            // Read inside the lock, so an event for a player in this list is applied after the rebuild
+            for (Player player : server.getAllPlayers()) {
+                UUID id = player.getUniqueId();
+                String backend = pendingBackends.get(id);
+                Optional<ServerConnection> connection = player.getCurrentServer();
+                if (connection.isPresent()) {
+                    String current = backendKey(connection.get().getServer());
+                    if (backend == null || backend.equals(current)) {
+                        backend = current;
+                        pendingBackends.remove(id);
+                    }
+                }
+                if (backend != null) {
+                    backends.put(id, backend);
+                    counts.merge(backend, 1, Integer::sum);
+                }
+            }
+            playerBackends.clear();
+            playerBackends.putAll(backends);
+            pendingBackends.keySet().retainAll(backends.keySet());
+            for (Map.Entry<String, AtomicInteger> entry : backendCounts.entrySet()) {
+                entry.getValue().set(counts.getOrDefault(entry.getKey(), 0));
+            }
+            counts.forEach((backend, count) -> backendCount(backend).set(count));
+        }
+    }
+    
+    private void startPlayerCountUpdater() {
+        pingCoordinator = new PingCoordinator<>(getConfig().getMaxConcurrentPings());
+        addressCache = new AddressCache(getConfig().getDnsTtl(), getConfig().getDnsNegativeTtl(), "VelocityPlaceholders Resolver");
+        pollScheduler = new PollScheduler(this::pollServer, metrics, "VelocityPlaceholders Poller");
+        refreshSources();
+        scheduleReconcile(getConfig().getReconcileInterval());
+    }
+    
+    @Override
+    protected void onConfigReloaded(PluginConfig previous, PluginConfig current) {
+        motd = ProxyPingMotd.from(current);
+        if (pollScheduler == null) {
+            return;
+        }
+        // The poller keeps running, it just picks up the new set of servers
+        pingCoordinator.setMaxConcurrent(current.getMaxConcurrentPings());
+        addressCache.setTtl(current.getDnsTtl(), current.getDnsNegativeTtl());
+        refreshSources();
+        if (previous.getReconcileInterval() != current.getReconcileInterval()) {
+            scheduleReconcile(current.getReconcileInterval());
+        }
+        if (previous.isProxyPush() != current.isProxyPush() || previous.getPushInterval() != current.getPushInterval()) {
+            schedulePush(current);
+        }
+        if (federationChanged(previous, current)) {
+            stopFederation();
+            startFederation(current);
+        }
+    }
+    
+    private static boolean federationChanged(PluginConfig previous, PluginConfig current) {
+        return previous.getFederationPort() != current.getFederationPort()
+                || !previous.getFederationHost().equals(current.getFederationHost())
+                || !previous.getFederationPeers().equals(current.getFederationPeers())
+                || previous.getFederationInterval() != current.getFederationInterval()
+                || previous.getFederationExpiry() != current.getFederationExpiry();
+    }
+    
+    /**
+     * Share event counts with the peer proxies, if federation_port is set
+     * Only event-counted backends and the proxy's own player count are shared. Pinged servers
+     * already report the players of every proxy.
+     */
+    private void startFederation(PluginConfig config) {
+        if (config.getFederationPort() <= 0) {
+            return;
+        }
+        List<InetSocketAddress> peers = new ArrayList<>();
+        for (String peer : config.getFederationPeers()) {
+            ServerEndpoint endpoint = ServerEndpoint.parse(peer);
+            InetSocketAddress address = endpoint == null ? null : new InetSocketAddress(endpoint.getHost(), endpoint.getPort());
+            if (address == null || address.isUnresolved()) {
+                logger.warn("Ignoring federation peer '" + peer + "', it isn't a reachable host:port");
+                continue;
+            }
+            peers.add(address);
+        }
+        try {
+            federation = new Federation(new InetSocketAddress(config.getFederationHost(), config.getFederationPort()), peers,
+                    (long) (config.getFederationInterval() * 1000), (long) (config.getFederationExpiry() * 1000),
+                    this::localBackendCounts, server::getPlayerCount, this::publishBackendCounts,
+                    logger, "VelocityPlaceholders Federation");
+            logger.info("Sharing counts with " + peers.size() + " peer proxies on UDP port " + config.getFederationPort());
+        } catch (IOException e) {
+            logger.error("Failed to start count federation", e);
+        }
+    }
+    
+    private void stopFederation() {
+        Federation current = federation;
+        if (current == null) {
+            return;
+        }
+        federation = null;
+        current.close();
+        // Drop what the peers contributed
+        publishBackendCounts(namesByBackend.keySet());
+    }
+    
+    /**
+     * @return This proxy's own count for every event-counted backend, as shared with peers
+     */
+    private Map<String, Integer> localBackendCounts() {
+        Map<String, Integer> counts = new HashMap<>();
+        for (String backend : namesByBackend.keySet()) {
+            counts.put(backend, Math.max(0, backendCount(backend).get()));
+        }
+        return counts;
+    }
+    
+    private void schedulePush(PluginConfig config) {
+        if (pushTask != null) {
+            pushTask.cancel();
+            pushTask = null;
+        }
+        if (config.isProxyPush()) {
+            long intervalMillis = Math.max(50, (long) (config.getPushInterval() * 1000));
+            pushTask = server.getScheduler().buildTask(this, this::pushCounts)
+                    .repeat(intervalMillis, TimeUnit.MILLISECONDS)
+                    .schedule();
+        }
+    }
+    
+    /**
+     * Send the counts that changed since the last push to every backend in one message each
+     * Backends that haven't got the current layout, or couldn't be reached last time, get the full state instead.
+     * Plugin messages travel over player connections, so backends without players are skipped until one joins.
+     */
+    private void pushCounts() {
+        byte[] delta = countSender.delta(getCountStore());
+        int layoutId = countSender.getLayoutId();
+        byte[] full = null;
+        for (RegisteredServer backend : server.getAllServers()) {
+            String key = backendKey(backend);
+            Integer synced = syncedLayouts.get(key);
+            if (synced != null && synced == layoutId) {
+                if (delta != null && !backend.sendPluginMessage(COUNTS_CHANNEL, delta)) {
+                    syncedLayouts.remove(key);
+                }
+                continue;
+            }
+            if (full == null) {
+                full = countSender.full();
+            }
+            if (backend.sendPluginMessage(COUNTS_CHANNEL, full)) {
+                syncedLayouts.put(key, layoutId);
+            }
+        }
+    }
+    
+    @Subscribe
+    public void onProxyPing(ProxyPingEvent event) {
+        ProxyPingMotd current = motd;
+        if (current != null) {
+            event.setPing(current.apply(event.getPing(), getCountStore(), getHistory()));
+        }
+    }
+    
+    @Subscribe
+    public void onServerPostConnect(ServerPostConnectEvent event) {
+        // getCurrentServer() shows the new backend from here on
+        synchronized (backendLock) {
+            pendingBackends.remove(event.getPlayer().getUniqueId());
+        }
+        // A backend's first player may follow a backend restart, so send it everything again
+        event.getPlayer().getCurrentServer().ifPresent(connection -> {
+            if (connection.getServer().getPlayersConnected().size() <= 1) {
+                syncedLayouts.remove(backendKey(connection.getServer()));
+            }
+        });
+    }
+    
+    @Subscribe
+    public void onPluginMessage(PluginMessageEvent event) {
+        if (!COUNTS_CHANNEL.equals(event.getIdentifier())) {
+            return;
+        }
+        // Never forward this channel, so clients can't send fake counts to backends
+        event.setResult(PluginMessageEvent.ForwardResult.handled());
+        if (event.getSource() instanceof ServerConnection && CountSync.isResyncRequest(event.getData())) {
+            syncedLayouts.remove(backendKey(((ServerConnection) event.getSource()).getServer()));
+        }
+    }
+    
+    private void scheduleReconcile(int seconds) {
+        if (reconcileTask != null) {
+            reconcileTask.cancel();
+        }
+        reconcileTask = server.getScheduler().buildTask(this, this::refreshSources)
+                .repeat(Math.max(1, seconds), TimeUnit.SECONDS)
+                .schedule();
+    }
+    
+    /**
+     * Work out where each server's count comes from, rebuild the event counters from the proxy's
+     * own connection lists to correct any drift, and poll everything that isn't event-counted
+     */
+    private synchronized void refreshSources() {
+        PluginConfig config = getConfig();
+        Map<String, List<String>> index = new HashMap<>();
+        List<String> polled = new ArrayList<>();
+        Map<String, ServerEndpoint> endpoints = new HashMap<>();
+        for (ServerSettings settings : config.getServerSettings()) {
+            Optional<RegisteredServer> registered = server.getServer(settings.getId());
+            if (resolveSource(config, settings, registered.isPresent()) == ServerSettings.Source.EVENT) {
+                index.computeIfAbsent(backendKey(registered.get()), key -> new ArrayList<>()).add(settings.getName());
+                continue;
+            }
+            polled.add(settings.getName());
+            // Only ids with a port are addresses, a bare name is a server missing from velocity.toml
+            if (config.isPingFallback() && registered.isEmpty() && !settings.isCurrentServer() && settings.getId().indexOf(':') > 0) {
+                ServerEndpoint endpoint = ServerEndpoint.parse(settings.getId());
+                if (endpoint != null) {
+                    endpoints.put(settings.getName(), endpoint);
+                    addressCache.resolve(endpoint);
+                }
+            }
+        }
+        namesByBackend = index;
+        fallbackEndpoints = endpoints;
+        addressCache.retain(endpoints.values());
+        fallbackServers.keySet().retainAll(endpoints.values());
+        
+        reconcileBackendCounts();
+        publishBackendCounts(index.keySet());
+        // Names sharing a server id are polled once, "current" and "this" are the same target
+        pollGroups = groupByTarget(polled, serverName -> {
+            ServerSettings settings = config.getServer(serverName);
+            return settings.isCurrentServer() ? "current" : settings.getId().toLowerCase(Locale.ROOT);
+        });
+        pollScheduler.setServers(pollSettings(config, pollGroups.keySet()));
+    }
+    
+    private static ServerSettings.Source resolveSource(PluginConfig config, ServerSettings settings, boolean registered) {
+        ServerSettings.Source source = settings.getSource();
+        if (source == ServerSettings.Source.AUTO) {
+            if (settings.isCurrentServer()) {
+                return ServerSettings.Source.CURRENT;
+            }
+            source = config.getCountMode() == PluginConfig.CountMode.EVENTS
+                    ? ServerSettings.Source.EVENT
+                    : ServerSettings.Source.PING;
+        }
+        // Only servers registered with the proxy can be counted from its events
+        if (source == ServerSettings.Source.EVENT && !registered) {
+            return ServerSettings.Source.PING;
+        }
+        return source;
+    }
+    
+    private AtomicInteger backendCount(String backend) {
+        return backendCounts.computeIfAbsent(backend, key -> new AtomicInteger());
+    }
+    
+    private void publishBackendCounts(Collection<String> backends) {
+        for (String backend : backends) {
+            publishBackendCount(backend);
+        }
+    }
+    
+    private void publishBackendCount(String backend) {
+        List<String> names = namesByBackend.get(backend);
+        if (names == null) {
+            return;
+        }
+        Federation current = federation;
+        int count = Math.max(0, backendCount(backend).get()) + (current != null ? current.getPeerCount(backend) : 0);
+        for (String serverName : names) {
+            setPlayerCount(serverName, count);
+        }
+    }
+    
+    private static String backendKey(RegisteredServer registeredServer) {
+        return registeredServer.getServerInfo().getName().toLowerCase(Locale.ROOT);
+    }
+    
+    private CompletableFuture<Integer> pollServer(String serverName) {
+        PluginConfig config = getConfig();
+        ServerSettings settings = config.getServer(serverName);
+        if (settings == null) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Unknown server " + serverName));
+        }
+        List<String> serverNames = pollGroups.getOrDefault(serverName, List.of(serverName));
+        
+        // "current" on the proxy is everyone connected to it, and to its peers when federated
+        if (settings.isCurrentServer()) {
+            Federation current = federation;
+            int count = server.getPlayerCount() + (current != null ? current.getPeerPlayers() : 0);
+            ServerStatus status = new ServerStatus(count, server.getConfiguration().getShowMaxPlayers(), null, -1, 0);
+            for (String name : serverNames) {
+                setServerStatus(name, status);
+            }
+            return CompletableFuture.completedFuture(count);
+        }
+        
+        String serverId = settings.getId();
+        long timeoutMillis = pingTimeoutMillis(config, serverName);
+        Optional<RegisteredServer> registered = server.getServer(serverId);
+        if (registered.isPresent()) {
+            return pingServer(serverNames, serverId, backendKey(registered.get()), () -> ping(registered.get(), timeoutMillis), timeoutMillis);
+        }
+        ServerEndpoint endpoint = config.isPingFallback() ? fallbackEndpoints.get(serverName) : null;
+        if (endpoint == null) {
+            logger.warn("Server '" + serverName + "' (id: " + serverId + ") not found!");
+            for (String name : serverNames) {
+                setServerOffline(name);
+            }
+            return CompletableFuture.failedFuture(new IllegalStateException("Server " + serverId + " not found"));
+        }
+        // Resolved in the background and cached for dns_ttl, so a slow DNS server never holds up the poller
+        return pingServer(serverNames, serverId, endpoint.toString(), () -> addressCache.resolve(endpoint)
+                .thenCompose(address -> ping(getFallbackServer(endpoint, address), timeoutMillis)), timeoutMillis);
+    }
+    
+    /**
+     * Get a server that can be pinged for a "host:port" id that isn't registered with the proxy
+     * @param endpoint The parsed server id
+     * @param address The address it currently resolves to
+     * @return The server, created again if the endpoint now resolves to a different address
+     */
+    private RegisteredServer getFallbackServer(ServerEndpoint endpoint, InetSocketAddress address) {
+        RegisteredServer cached = fallbackServers.get(endpoint);
+        if (cached != null && cached.getServerInfo().getAddress().equals(address)) {
+            return cached;
+        }
+        RegisteredServer created = server.createRawRegisteredServer(new ServerInfo(endpoint.toString(), address));
+        fallbackServers.put(endpoint, created);
+        return created;
+    }
+    
+    /**
+     * Ping through the coordinator, which caps pings in flight and never pings a server twice at once,
+     * and store the result for every name that shows the server
+     * @param key Identifies the target, the backend name or the endpoint of a fallback server
+     */
+    private CompletableFuture<Integer> pingServer(List<String> serverNames, String serverId, String key,
+                                                  Supplier<CompletableFuture<ServerStatus>> ping, long timeoutMillis) {
+        return pingCoordinator.submit(key, timeoutMillis, ping)
+                .handle((status, throwable) -> {
+                    if (throwable != null) {
+                        Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+                        String reason = cause instanceof TimeoutException ? "No response within " + timeoutMillis + " ms" : cause.getMessage();
+                        logger.warn("Failed to ping server '" + serverNames.get(0) + "' (id: " + serverId + "): " + reason);
+                        for (String serverName : serverNames) {
+                            setServerOffline(serverName);
+                        }
+                        throw new CompletionException(cause);
+                    }
+                    for (String serverName : serverNames) {
+                        setServerStatus(serverName, status);
+                    }
+                    return status.getOnline();
+                });
+    }
+    
+    private static CompletableFuture<ServerStatus> ping(RegisteredServer registeredServer, long timeoutMillis) {
+        long start = System.nanoTime();
+        // The deadline also goes to Velocity, so a hung server's connection is closed rather than left open
+        PingOptions options = PingOptions.builder().timeout(Duration.ofMillis(timeoutMillis)).build();
+        return registeredServer.ping(options).thenApply(ping -> {
+            if (ping == null) {
+                throw new IllegalStateException("No response");
+            }
+            // Velocity's ping includes connecting, so this is a little above the pure round trip
+            int latencyMillis = (int) ((System.nanoTime() - start) / 1_000_000L);
+            int playerCount = ping.getPlayers()
+                    .map(ServerPing.Players::getOnline)
+                    .orElse(0);
+            int maxPlayers = ping.getPlayers()
+                    .map(ServerPing.Players::getMax)
+                    .orElse(0);
+            ServerPing.Version version = ping.getVersion();
+            return new ServerStatus(playerCount, maxPlayers,
+                    version != null ? version.getName() : null,
+                    version != null ? version.getProtocol() : -1,
+                    latencyMillis);
+        });
+    }
+    
+    @Override
+    protected PluginLogger getPluginLogger() {
+        return logger;
+    }
+    
+    @Override
+    public Path getDataDirectory() {
+        return dataDirectory;
+    }
+    
+    @Override
+    public Object getLogger() {
+        return slf4jLogger;
+    }
+    
+    /**
+     * Get the placeholder value for a server
+     * @param placeholder The placeholder string (e.g., "online_modernprac")
+     * @return The player count as string, or "0" if not found
+     */
+    public String getPlaceholder(String placeholder) {
+        if (placeholder.startsWith("online_")) {
+            String serverName = placeholder.substring("online_".length());
+            return String.valueOf(getPlayerCount(serverName));
+        }
+        return "0";
+    }
+    
+    /**
+     * Get the placeholder manager for replacing placeholders in strings
+     * @return The PlaceholderManager instance
+     */
+    public PlaceholderManager getPlaceholderManager() {
+        return placeholderManager;
+    }
+    
+    /**
+     * /vplaceholders on the proxy
+     */
+    private final class StatsCommand implements SimpleCommand {
+        @Override
+        public void execute(Invocation invocation) {
+            for (String line : executeCommand(invocation.arguments())) {
+                invocation.source().sendMessage(Component.text(line));
+            }
+        }
+        
+        @Override
+        public List<String> suggest(Invocation invocation) {
+            return suggestCommand(invocation.arguments());
+        }
+        
+        @Override
+        public boolean hasPermission(Invocation invocation) {
+            return invocation.source().hasPermission(COMMAND_PERMISSION);
+        }
+    }
+}